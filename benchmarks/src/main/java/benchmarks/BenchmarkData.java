@@ -0,0 +1,43 @@
+package benchmarks;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+// Synthetic inputs so the benchmarks do not depend on the image folders
+final class BenchmarkData {
+    private BenchmarkData() {
+    }
+
+    static int[] topology(String spec) {
+        return Arrays.stream(spec.split("-")).mapToInt(Integer::parseInt).toArray();
+    }
+
+    static double[][] inputs(int rows, int features, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        double[][] inputs = new double[rows][features];
+        for (double[] row : inputs) {
+            for (int j = 0; j < features; j++) {
+                row[j] = random.nextDouble();
+            }
+        }
+        return inputs;
+    }
+
+    static double[] block(int rows, int features, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        double[] block = new double[rows * features];
+        for (int i = 0; i < block.length; i++) {
+            block[i] = random.nextDouble() - 0.5;
+        }
+        return block;
+    }
+
+    static int[] labels(int rows, int numClasses, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        int[] labels = new int[rows];
+        for (int i = 0; i < rows; i++) {
+            labels[i] = random.nextInt(numClasses);
+        }
+        return labels;
+    }
+}
@@ -0,0 +1,86 @@
+package benchmarks;
+
+import Data.Dataset;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import utils.ImageBatchSource;
+import utils.ImageUtils;
+import utils.LabelEncoder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// Loading an image folder by decoding, from the uint8 cache, and as one streamed epoch;
+// run from the repository root or set dataDir
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class DataLoadingBenchmark {
+    @Param({"testing"})
+    public String dataDir;
+
+    @Param({"100"})
+    public int maxPerClass;
+
+    private String cacheDir;
+    private ImageBatchSource source;
+    private double[] batchInputs;
+    private int[] batchLabels;
+
+    @Setup
+    public void setup() throws IOException {
+        cacheDir = Files.createTempDirectory("ann-image-cache").toString();
+        ImageUtils.loadDataset(dataDir, new LabelEncoder(), maxPerClass, cacheDir);
+        source = new ImageBatchSource(dataDir, new LabelEncoder(), maxPerClass, 50);
+        batchInputs = new double[50 * source.numFeatures()];
+        batchLabels = new int[50];
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        source.close();
+        try (Stream<Path> files = Files.list(Path.of(cacheDir))) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(Path.of(cacheDir));
+    }
+
+    @Benchmark
+    public Dataset loadDataset() throws IOException {
+        return ImageUtils.loadDataset(dataDir, new LabelEncoder(), maxPerClass);
+    }
+
+    @Benchmark
+    public Dataset loadCached() throws IOException {
+        return ImageUtils.loadDataset(dataDir, new LabelEncoder(), maxPerClass, cacheDir);
+    }
+
+    @Benchmark
+    public int streamEpoch() {
+        source.startEpoch();
+        int rows = 0;
+        int count;
+        while ((count = source.next(batchInputs, batchLabels, batchLabels.length)) > 0) {
+            rows += count;
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,79 @@
+package benchmarks;
+
+import ANN.NeuralNetwork;
+import ANN.Precision;
+import ANN.QuantizedNetwork;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// Single-row classify latency (with percentiles) and classifyAll throughput, double and quantized
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class InferenceBenchmark {
+    @Param({"784-50-25-10", "784-256-128-10"})
+    public String topology;
+
+    @Param({"1", "4"})
+    public int threads;
+
+    @Param({"10000"})
+    public int rows;
+
+    private NeuralNetwork network;
+    private QuantizedNetwork float32;
+    private QuantizedNetwork int8;
+    private double[][] inputs;
+    private double[] row;
+
+    @Setup
+    public void setup() {
+        int[] layerSizes = BenchmarkData.topology(topology);
+        network = new NeuralNetwork(layerSizes);
+        network.setThreads(threads);
+        float32 = network.quantize(Precision.FLOAT32);
+        int8 = network.quantize(Precision.INT8);
+        inputs = BenchmarkData.inputs(rows, layerSizes[0], 1);
+        row = inputs[0];
+    }
+
+    @Benchmark
+    @BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public int classify() {
+        return network.classify(row);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public int[] classifyAll() {
+        return network.classifyAll(inputs);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public int[] classifyAllFloat32() {
+        return float32.classifyAll(inputs);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public int[] classifyAllInt8() {
+        return int8.classifyAll(inputs);
+    }
+}
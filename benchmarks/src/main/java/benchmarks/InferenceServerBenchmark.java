@@ -0,0 +1,69 @@
+package benchmarks;
+
+import ANN.NeuralNetwork;
+import Serving.InferenceServer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// Round trips through InferenceServer from 16 concurrent clients; maxBatchSize 1 disables batching
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(16)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class InferenceServerBenchmark {
+    @Param({"784-50-25-10", "784-256-128-10"})
+    public String topology;
+
+    @Param({"1", "32"})
+    public int maxBatchSize;
+
+    @Param({"0"})
+    public long maxDelayMicros;
+
+    private InferenceServer server;
+    private double[][] inputs;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        int[] layerSizes = BenchmarkData.topology(topology);
+        server = new InferenceServer(new NeuralNetwork(layerSizes).freeze(), maxBatchSize, maxDelayMicros, 1, 1024);
+        inputs = BenchmarkData.inputs(256, layerSizes[0], 1);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        server.close();
+    }
+
+    @Benchmark
+    public int classify(ClientState client) {
+        return server.classify(inputs[client.next()]).join();
+    }
+
+    @State(Scope.Thread)
+    public static class ClientState {
+        private int row;
+
+        int next() {
+            row = (row + 1) & 255;
+            return row;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package benchmarks;
+
+import Kernel.KernelSelector;
+import Kernel.Kernels;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// Scalar vs Vector API kernels on the same mini-batch
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class KernelBenchmark {
+    @Param({"scalar", "vector"})
+    public String kernels;
+
+    @Param({"784x50", "784x512"})
+    public String shape;
+
+    @Param({"1", "50"})
+    public int rows;
+
+    private Kernels impl;
+    private int numNodesIn;
+    private int numNodesOut;
+    private double[] inputs;
+    private double[] weights;
+    private double[] deltas;
+    private double[] out;
+    private double[] gradients;
+    private double[] newDeltas;
+    private byte[] quantizedInputs;
+    private byte[] quantizedWeights;
+    private int[] accumulators;
+
+    @Setup
+    public void setup() {
+        impl = kernels.equals("vector") ? KernelSelector.vector() : KernelSelector.scalar();
+        String[] dims = shape.split("x");
+        numNodesIn = Integer.parseInt(dims[0]);
+        numNodesOut = Integer.parseInt(dims[1]);
+        inputs = BenchmarkData.block(rows, numNodesIn, 1);
+        weights = BenchmarkData.block(numNodesOut, numNodesIn + 1, 2);
+        deltas = BenchmarkData.block(rows, numNodesOut, 3);
+        out = new double[rows * numNodesOut];
+        gradients = new double[weights.length];
+        newDeltas = new double[rows * numNodesIn];
+        quantizedInputs = new byte[rows * numNodesIn];
+        quantizedWeights = new byte[numNodesOut * numNodesIn];
+        for (int i = 0; i < quantizedInputs.length; i++) {
+            quantizedInputs[i] = (byte) (inputs[i] * 254);
+        }
+        for (int i = 0; i < quantizedWeights.length; i++) {
+            quantizedWeights[i] = (byte) (weights[i] * 254);
+        }
+        accumulators = new int[rows * numNodesOut];
+    }
+
+    @Benchmark
+    public double[] weightedInputs() {
+        impl.weightedInputs(inputs, rows, numNodesIn, weights, numNodesOut, out);
+        return out;
+    }
+
+    @Benchmark
+    public double[] accumulateWeightGradients() {
+        impl.accumulateWeightGradients(deltas, inputs, rows, numNodesIn, numNodesOut, gradients);
+        return gradients;
+    }
+
+    @Benchmark
+    public double[] propagateDeltas() {
+        impl.propagateDeltas(deltas, weights, rows, numNodesIn, numNodesOut, newDeltas);
+        return newDeltas;
+    }
+
+    @Benchmark
+    public int[] dotProductsInt8() {
+        impl.dotProducts(quantizedInputs, rows, numNodesIn, quantizedWeights, numNodesOut, accumulators);
+        return accumulators;
+    }
+}
@@ -0,0 +1,72 @@
+package benchmarks;
+
+import ANN.Layer;
+import Activation.Sigmoid;
+import Initialization.RandomUniform;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// Layer.calculateOutputs / accumulateGradients on one row and on a mini-batch
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class LayerBenchmark {
+    @Param({"784x50", "784x512", "512x512"})
+    public String shape;
+
+    @Param({"1", "50"})
+    public int batchSize;
+
+    private Layer layer;
+    private double[] inputs;
+    private double[] weightedInputs;
+    private double[] activations;
+    private double[] upstreamDeltas;
+    private double[] deltas;
+    private double[] gradients;
+    private double[] newSubDeltas;
+
+    @Setup
+    public void setup() {
+        String[] dims = shape.split("x");
+        int numNodesIn = Integer.parseInt(dims[0]);
+        int numNodesOut = Integer.parseInt(dims[1]);
+        layer = new Layer(numNodesIn, numNodesOut, new Sigmoid(), new RandomUniform(3));
+        inputs = BenchmarkData.block(batchSize, numNodesIn, 1);
+        weightedInputs = new double[batchSize * numNodesOut];
+        activations = new double[batchSize * numNodesOut];
+        upstreamDeltas = BenchmarkData.block(batchSize, numNodesOut, 2);
+        deltas = new double[upstreamDeltas.length];
+        gradients = new double[layer.numParameters()];
+        newSubDeltas = new double[batchSize * numNodesIn];
+        layer.calculateOutputs(inputs, batchSize, weightedInputs, activations);
+    }
+
+    @Benchmark
+    public double[] calculateOutputs() {
+        layer.calculateOutputs(inputs, batchSize, weightedInputs, activations);
+        return activations;
+    }
+
+    @Benchmark
+    public double[] accumulateGradients() {
+        // the deltas are scaled in place, so start every call from the same values
+        System.arraycopy(upstreamDeltas, 0, deltas, 0, deltas.length);
+        layer.accumulateGradients(deltas, weightedInputs, activations, inputs, batchSize, gradients, newSubDeltas);
+        return newSubDeltas;
+    }
+}
@@ -0,0 +1,82 @@
+package benchmarks;
+
+import ANN.NeuralNetwork;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import utils.LabelEncoder;
+import utils.MappedModel;
+import utils.ModelIO;
+import utils.TrainedModel;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+// ModelIO save/load through temporary files, serialized and binary/memory-mapped
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class ModelIOBenchmark {
+    @Param({"784-50-25-10", "784-1024-512-10"})
+    public String topology;
+
+    private TrainedModel model;
+    private Path modelFile;
+    private Path binaryFile;
+
+    @Setup
+    public void setup() throws IOException {
+        model = new TrainedModel(new NeuralNetwork(BenchmarkData.topology(topology)), new LabelEncoder());
+        modelFile = Files.createTempFile("ann-bench", ".bin");
+        ModelIO.save(modelFile.toString(), model);
+        binaryFile = Files.createTempFile("ann-bench", ".model");
+        ModelIO.saveBinary(binaryFile.toString(), model);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(modelFile);
+        Files.deleteIfExists(binaryFile);
+    }
+
+    @Benchmark
+    public Path save() throws IOException {
+        ModelIO.save(modelFile.toString(), model);
+        return modelFile;
+    }
+
+    @Benchmark
+    public TrainedModel load() throws IOException, ClassNotFoundException {
+        return ModelIO.load(modelFile.toString());
+    }
+
+    @Benchmark
+    public Path saveBinary() throws IOException {
+        ModelIO.saveBinary(binaryFile.toString(), model);
+        return binaryFile;
+    }
+
+    @Benchmark
+    public TrainedModel loadBinary() throws IOException {
+        return ModelIO.loadBinary(binaryFile.toString());
+    }
+
+    @Benchmark
+    public MappedModel map() throws IOException {
+        return ModelIO.map(binaryFile.toString());
+    }
+}
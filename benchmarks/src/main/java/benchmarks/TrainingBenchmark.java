@@ -0,0 +1,74 @@
+package benchmarks;
+
+import ANN.NeuralNetwork;
+import Activation.Sigmoid;
+import Data.Dataset;
+import Data.DatasetSource;
+import Initialization.RandomUniform;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// One NeuralNetwork.train epoch at the README topology (784-50-25-10) and larger ones.
+// sourceEpoch reuses one DatasetSource, so its gc.alloc.rate.norm is what a steady-state
+// epoch allocates; it should not grow with rows (compare -p rows=2000,8000).
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class TrainingBenchmark {
+    @Param({"784-50-25-10", "784-256-128-10", "784-1024-512-10"})
+    public String topology;
+
+    @Param({"1", "4"})
+    public int threads;
+
+    @Param({"2000"})
+    public int rows;
+
+    @Param({"50"})
+    public int batchSize;
+
+    private NeuralNetwork network;
+    private double[][] inputs;
+    private int[] labels;
+    private DatasetSource source;
+
+    @Setup
+    public void setup() {
+        int[] layerSizes = BenchmarkData.topology(topology);
+        // fixed seeds, so every run and version trains on the same weights and row orders
+        network = new NeuralNetwork(layerSizes, new RandomUniform(3), new Sigmoid());
+        network.setSeed(4);
+        network.setEpochs(1);
+        network.setBatchSize(batchSize);
+        network.setThreads(threads);
+        inputs = BenchmarkData.inputs(rows, layerSizes[0], 1);
+        labels = BenchmarkData.labels(rows, layerSizes[layerSizes.length - 1], 2);
+        source = new DatasetSource(Dataset.wrap(inputs, labels), 5);
+    }
+
+    @Benchmark
+    public NeuralNetwork epoch() {
+        network.train(inputs, labels);
+        return network;
+    }
+
+    @Benchmark
+    public NeuralNetwork sourceEpoch() {
+        network.train(source);
+        return network;
+    }
+}
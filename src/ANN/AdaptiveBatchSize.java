@@ -0,0 +1,99 @@
+package ANN;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * Grows the mini-batch as training settles: whenever the validation metric
+ * hasn't improved by more than {@code minDelta} for {@code patience}
+ * validation passes, the batch size is multiplied by {@code factor}, up to
+ * {@code maxBatchSize}. Later epochs then take fewer, larger steps, which
+ * split better over threads and cost less per row. Like a learning-rate
+ * decay, a larger batch also averages out more of the gradient noise (Smith
+ * et al., "Don't Decay the Learning Rate, Increase the Batch Size"). Every
+ * train call starts again from the network's batch size; a resume call
+ * continues from the batch size and plateau count in its checkpoint.
+ */
+public final class AdaptiveBatchSize {
+    private final ValidationMetric metric;
+    private final int patience;
+    private final double minDelta;
+    private final int factor;
+    private final int maxBatchSize;
+    private double best;
+    private int wait;
+    private int batchSize;
+
+    // Watches the validation accuracy and grows on any plateau
+    public AdaptiveBatchSize(int patience, int factor, int maxBatchSize) {
+        this(ValidationMetric.ACCURACY, patience, 0.0, factor, maxBatchSize);
+    }
+
+    public AdaptiveBatchSize(ValidationMetric metric, int patience, double minDelta, int factor, int maxBatchSize) {
+        if (patience < 1) {
+            throw new IllegalArgumentException("Patience can't be less than 1");
+        }
+        if (minDelta < 0.0) {
+            throw new IllegalArgumentException("Minimum improvement can't be negative");
+        }
+        if (factor < 2) {
+            throw new IllegalArgumentException("Growth factor must be at least 2");
+        }
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("Batch size can't be less than 1");
+        }
+        this.metric = metric;
+        this.patience = patience;
+        this.minDelta = minDelta;
+        this.factor = factor;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    int start(int batchSize) {
+        best = Double.NaN;
+        wait = 0;
+        this.batchSize = batchSize;
+        return batchSize;
+    }
+
+    // Copy of the plateau state for a checkpoint; the batch size is stored by the checkpoint itself
+    Serializable snapshot() {
+        return new State(best, wait);
+    }
+
+    // Continues from a snapshot() at the checkpoint's batch size; null starts over from it
+    int restore(Serializable snapshot, int batchSize) {
+        start(batchSize);
+        if (snapshot != null) {
+            if (!(snapshot instanceof State state)) {
+                throw new IllegalArgumentException("Batch size state doesn't match the checkpoint");
+            }
+            best = state.best();
+            wait = state.waitCount();
+        }
+        return batchSize;
+    }
+
+    // Called after every validation pass; returns the batch size for the next epoch
+    int update(EpochMetrics metrics) {
+        double value = metric.value(metrics);
+        if (metric.improves(value, best, minDelta)) {
+            best = value;
+            wait = 0;
+        } else if (++wait >= patience && batchSize < maxBatchSize) {
+            batchSize = (int) Math.min(maxBatchSize, (long) batchSize * factor);
+            wait = 0;
+        }
+        return batchSize;
+    }
+
+    // Batch size of the latest epoch
+    public int batchSize() {
+        return batchSize;
+    }
+
+    private record State(double best, int waitCount) implements Serializable {
+        @Serial
+        private static final long serialVersionUID = 1L;
+    }
+}
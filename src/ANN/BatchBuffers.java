@@ -0,0 +1,37 @@
+package ANN;
+
+// Per-thread row-major scratch for one mini-batch (or one shard of it)
+final class BatchBuffers {
+    final int capacity;
+    final double[] inputs;
+    final int[] labels;
+    final double[][] weightedInputs;
+    final double[][] activations;
+    final double[] deltas;
+    final double[] nextDeltas;
+    final double[][] gradients;
+    double loss;
+    int correct;
+    // phase times, only measured when telemetry is on
+    long forwardNanos;
+    long backwardNanos;
+
+    BatchBuffers(Layer[] layers, int capacity) {
+        this.capacity = capacity;
+        int numFeatures = layers[0].numNodesIn;
+        inputs = new double[capacity * numFeatures];
+        labels = new int[capacity];
+        weightedInputs = new double[layers.length][];
+        activations = new double[layers.length][];
+        gradients = new double[layers.length][];
+        int maxWidth = numFeatures;
+        for (int l = 0; l < layers.length; l++) {
+            weightedInputs[l] = new double[capacity * layers[l].numNodesOut];
+            activations[l] = new double[capacity * layers[l].numNodesOut];
+            gradients[l] = new double[layers[l].numParameters()];
+            maxWidth = Math.max(maxWidth, layers[l].numNodesOut);
+        }
+        deltas = new double[capacity * maxWidth];
+        nextDeltas = new double[capacity * maxWidth];
+    }
+}
@@ -0,0 +1,158 @@
+package ANN;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * Ends training once the validation metric hasn't improved by more than
+ * {@code minDelta} for {@code patience} validation passes in a row, and
+ * optionally puts back the weights of the best pass when training ends,
+ * whether it stopped early or ran all its epochs. Patience counts validation
+ * passes, so with a validation frequency of 5 a patience of 2 waits 10 epochs.
+ * Every train call starts over; a resume call continues from the state in its
+ * checkpoint.
+ */
+public final class EarlyStopping {
+    private final ValidationMetric metric;
+    private final int patience;
+    private final double minDelta;
+    private final boolean restoreBestWeights;
+    private double best;
+    private int bestEpoch;
+    private int stoppedEpoch;
+    private int wait;
+    private double[][] bestWeights;
+
+    // Watches the validation accuracy
+    public EarlyStopping(int patience, double minDelta, boolean restoreBestWeights) {
+        this(ValidationMetric.ACCURACY, patience, minDelta, restoreBestWeights);
+    }
+
+    public EarlyStopping(ValidationMetric metric, int patience, double minDelta, boolean restoreBestWeights) {
+        if (patience < 1) {
+            throw new IllegalArgumentException("Patience can't be less than 1");
+        }
+        if (minDelta < 0.0) {
+            throw new IllegalArgumentException("Minimum improvement can't be negative");
+        }
+        this.metric = metric;
+        this.patience = patience;
+        this.minDelta = minDelta;
+        this.restoreBestWeights = restoreBestWeights;
+        start();
+    }
+
+    void start() {
+        best = Double.NaN;
+        bestEpoch = 0;
+        stoppedEpoch = 0;
+        wait = 0;
+    }
+
+    // Copy of the state for a checkpoint
+    Serializable snapshot() {
+        return new State(best, bestEpoch, stoppedEpoch, wait, copy(bestWeights));
+    }
+
+    // Continues from a snapshot() of an early stopping on the same ANN; null starts over
+    void restore(Serializable snapshot, Layer[] layers) {
+        if (snapshot == null) {
+            start();
+            return;
+        }
+        if (!(snapshot instanceof State state)) {
+            throw new IllegalArgumentException("Early stopping state doesn't match the checkpoint");
+        }
+        if (state.bestWeights() != null) {
+            if (state.bestWeights().length != layers.length) {
+                throw new IllegalArgumentException("Checkpoint doesn't match the ANN");
+            }
+            for (int l = 0; l < layers.length; l++) {
+                if (state.bestWeights()[l].length != layers[l].numParameters()) {
+                    throw new IllegalArgumentException("Checkpoint doesn't match the ANN");
+                }
+            }
+        }
+        best = state.best();
+        bestEpoch = state.bestEpoch();
+        stoppedEpoch = state.stoppedEpoch();
+        wait = state.waitCount();
+        bestWeights = copy(state.bestWeights());
+    }
+
+    // Called after every validation pass; true ends training after this epoch
+    boolean update(EpochMetrics metrics, Layer[] layers) {
+        double value = metric.value(metrics);
+        if (metric.improves(value, best, minDelta)) {
+            best = value;
+            bestEpoch = metrics.epoch();
+            wait = 0;
+            if (restoreBestWeights) {
+                saveWeights(layers);
+            }
+            return false;
+        }
+        if (++wait < patience) {
+            return false;
+        }
+        stoppedEpoch = metrics.epoch();
+        return true;
+    }
+
+    // Puts back the best weights if asked to and the latest ones aren't them; true if it did
+    boolean finish(Layer[] layers, int lastEpoch) {
+        if (restoreBestWeights && bestWeights != null && bestEpoch > 0 && bestEpoch != lastEpoch) {
+            for (int l = 0; l < layers.length; l++) {
+                System.arraycopy(bestWeights[l], 0, layers[l].getWeights(), 0, bestWeights[l].length);
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private void saveWeights(Layer[] layers) {
+        if (bestWeights == null || bestWeights.length != layers.length) {
+            bestWeights = new double[layers.length][];
+        }
+        for (int l = 0; l < layers.length; l++) {
+            double[] weights = layers[l].getWeights();
+            if (bestWeights[l] == null || bestWeights[l].length != weights.length) {
+                bestWeights[l] = weights.clone();
+            } else {
+                System.arraycopy(weights, 0, bestWeights[l], 0, weights.length);
+            }
+        }
+    }
+
+    private static double[][] copy(double[][] weights) {
+        if (weights == null) {
+            return null;
+        }
+        double[][] result = new double[weights.length][];
+        for (int l = 0; l < weights.length; l++) {
+            result[l] = weights[l].clone();
+        }
+        return result;
+    }
+
+    private record State(double best, int bestEpoch, int stoppedEpoch, int waitCount, double[][] bestWeights)
+            implements Serializable {
+        @Serial
+        private static final long serialVersionUID = 1L;
+    }
+
+    // Best value of the metric in the last train call, NaN before any validation pass
+    public double bestValue() {
+        return best;
+    }
+
+    // Epoch (1-based) of the best validation pass, 0 before any
+    public int bestEpoch() {
+        return bestEpoch;
+    }
+
+    // Epoch (1-based) after which the last train call stopped, 0 if it ran all its epochs
+    public int stoppedEpoch() {
+        return stoppedEpoch;
+    }
+}
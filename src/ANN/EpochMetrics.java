@@ -0,0 +1,15 @@
+package ANN;
+
+/**
+ * Metrics of one training epoch. The training loss and accuracy are averaged
+ * over the epoch's mini-batches as seen by their own forward passes, i.e.
+ * before each batch's update. The validation fields are NaN and
+ * {@code validationSamples} is 0 in epochs without a validation pass.
+ */
+public record EpochMetrics(int epoch, double loss, double accuracy, int samples,
+                           double validationLoss, double validationAccuracy, int validationSamples) {
+
+    public boolean hasValidation() {
+        return validationSamples > 0;
+    }
+}
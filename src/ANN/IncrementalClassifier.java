@@ -0,0 +1,79 @@
+package ANN;
+
+/**
+ * Classifies one input row that changes a few features at a time, as in a
+ * drawing canvas. The first layer's weighted inputs are kept up to date by
+ * adding {@code delta * weight column} for every changed feature instead of
+ * redoing the full dot product; only the layers after it run in full.
+ * Created by {@link Predictor#incremental()}; not thread-safe.
+ */
+public final class IncrementalClassifier {
+    // full recompute after this many updates, so rounding from the running sums can't build up
+    private static final int RESYNC_INTERVAL = 1 << 16;
+    private final Layer[] layers;
+    private final double[] inputs;
+    private final double[][] weightedInputs;
+    private final double[][] activations;
+    private int updates;
+
+    IncrementalClassifier(Layer[] layers) {
+        this.layers = layers;
+        inputs = new double[layers[0].numNodesIn];
+        weightedInputs = new double[layers.length][];
+        activations = new double[layers.length][];
+        for (int l = 0; l < layers.length; l++) {
+            weightedInputs[l] = new double[layers[l].numNodesOut];
+            activations[l] = new double[layers[l].numNodesOut];
+        }
+        recompute();
+    }
+
+    // Replaces the whole row
+    public void reset(double[] inputs) {
+        if (inputs.length != this.inputs.length) {
+            throw new IllegalArgumentException("Number of features doesn't match the ANN");
+        }
+        System.arraycopy(inputs, 0, this.inputs, 0, inputs.length);
+        recompute();
+    }
+
+    public void update(int feature, double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            throw new IllegalArgumentException("Invalid value for feature " + feature + ": " + value);
+        }
+        double delta = value - inputs[feature];
+        if (delta == 0.0) {
+            return;
+        }
+        inputs[feature] = value;
+        if (++updates >= RESYNC_INTERVAL) {
+            recompute();
+        } else {
+            layers[0].addInputDelta(feature, delta, weightedInputs[0]);
+        }
+    }
+
+    /**
+     * Output activations for the current row. The returned array is reused by
+     * the next call.
+     */
+    public double[] predict() {
+        layers[0].activate(weightedInputs[0], 1, activations[0]);
+        double[] outputs = activations[0];
+        for (int l = 1; l < layers.length; l++) {
+            layers[l].calculateOutputs(outputs, 1, weightedInputs[l], activations[l]);
+            outputs = activations[l];
+        }
+        return outputs;
+    }
+
+    public int classify() {
+        double[] outputs = predict();
+        return NeuralNetwork.maxValueIndex(outputs, 0, outputs.length);
+    }
+
+    private void recompute() {
+        layers[0].calculateOutputs(inputs, 1, weightedInputs[0], activations[0]);
+        updates = 0;
+    }
+}
@@ -0,0 +1,46 @@
+package ANN;
+
+/**
+ * Reusable scratch buffers for one {@link Predictor} call at a time.
+ * A context is not thread-safe; give every thread its own.
+ */
+public final class InferenceContext {
+    final int capacity;
+    final double[] inputs;
+    final int[] predictions;
+    final double[][] weightedInputs;
+    final double[][] activations;
+    // loss summed over the labelled rows evaluated with this context
+    double loss;
+
+    InferenceContext(Layer[] layers) {
+        this(layers, 1);
+    }
+
+    // Room for a batch of up to capacity rows
+    InferenceContext(Layer[] layers, int capacity) {
+        this(layerSizes(layers), capacity);
+    }
+
+    InferenceContext(int[] layerSizes, int capacity) {
+        this.capacity = capacity;
+        int numLayers = layerSizes.length - 1;
+        inputs = new double[capacity * layerSizes[0]];
+        predictions = new int[capacity];
+        weightedInputs = new double[numLayers][];
+        activations = new double[numLayers][];
+        for (int l = 0; l < numLayers; l++) {
+            weightedInputs[l] = new double[capacity * layerSizes[l + 1]];
+            activations[l] = new double[capacity * layerSizes[l + 1]];
+        }
+    }
+
+    private static int[] layerSizes(Layer[] layers) {
+        int[] sizes = new int[layers.length + 1];
+        sizes[0] = layers[0].numNodesIn;
+        for (int l = 0; l < layers.length; l++) {
+            sizes[l + 1] = layers[l].numNodesOut;
+        }
+        return sizes;
+    }
+}
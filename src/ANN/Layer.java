@@ -2,6 +2,9 @@ package ANN;
 
 import Activation.ActivationFunction;
 import Initialization.WeightInitializer;
+import Kernel.KernelSelector;
+import Kernel.Kernels;
+import Optimization.Optimizer;
 
 import java.io.Serial;
 import java.io.Serializable;
@@ -9,6 +12,7 @@ import java.io.Serializable;
 public class Layer implements Serializable {
     @Serial
     private static final long serialVersionUID = 1L;
+    private static final Kernels KERNELS = KernelSelector.active();
     public final int numNodesIn;
     public final int numNodesOut;
 
@@ -24,58 +28,129 @@ public class Layer implements Serializable {
     // Create the layer
     public Layer(int numNodesIn, int numNodesOut, ActivationFunction activationFunction,
                  WeightInitializer weightInitializer) {
+        this(numNodesIn, numNodesOut, activationFunction, weightInitializer.init(numNodesIn + 1, numNodesOut));
+    }
+
+    // Create the layer from existing weights: numNodesOut rows of numNodesIn weights followed by the bias
+    public Layer(int numNodesIn, int numNodesOut, ActivationFunction activationFunction, double[] weights) {
+        if (weights.length != (numNodesIn + 1) * numNodesOut) {
+            throw new IllegalArgumentException("Number of weights doesn't match the layer size");
+        }
         this.numNodesIn = numNodesIn;
         this.numNodesOut = numNodesOut;
         this.activationFunction = activationFunction;
-        weights = weightInitializer.init(numNodesIn + 1, numNodesOut);
+        this.weights = weights;
         gradients = new double[(numNodesIn + 1) * numNodesOut];
 
         weightedInputs = new double[numNodesOut];
         activations = new double[numNodesOut];
     }
 
+    // Inference-only copy with its own weights and no training scratch
+    private Layer(Layer source) {
+        numNodesIn = source.numNodesIn;
+        numNodesOut = source.numNodesOut;
+        activationFunction = source.activationFunction;
+        weights = source.weights.clone();
+        gradients = new double[0];
+        weightedInputs = new double[0];
+        activations = new double[0];
+    }
+
+    Layer freeze() {
+        return new Layer(this);
+    }
+
     // Calculate layer output activations
     public double[] calculateOutputs(double[] inputs) {
-        for (int nodeOut = 0; nodeOut < numNodesOut; nodeOut++) {
-            int base = nodeOut * (numNodesIn + 1);
-            double weightedInput = weights[base + numNodesIn]; // bias
-            for (int nodeIn = 0; nodeIn < numNodesIn; nodeIn++) {
-                weightedInput += inputs[nodeIn] * weights[base + nodeIn];
-            }
-            weightedInputs[nodeOut] = weightedInput;
-            activations[nodeOut] = activationFunction.activate(weightedInput);
-        }
+        calculateOutputs(inputs, 1, weightedInputs, activations);
         return activations;
     }
 
+    /**
+     * Batched forward pass. {@code inputs} holds {@code batchSize} rows of
+     * {@code numNodesIn} values, row-major; the weighted inputs and activations
+     * are written as {@code batchSize} rows of {@code numNodesOut} values.
+     */
+    public void calculateOutputs(double[] inputs, int batchSize, double[] weightedInputs, double[] activations) {
+        KERNELS.weightedInputs(inputs, batchSize, numNodesIn, weights, numNodesOut, weightedInputs);
+        activationFunction.activate(weightedInputs, activations, batchSize, numNodesOut);
+    }
+
+    // Activations of rows already-computed weighted inputs, e.g. ones kept up to date by addInputDelta
+    void activate(double[] weightedInputs, int rows, double[] activations) {
+        activationFunction.activate(weightedInputs, activations, rows, numNodesOut);
+    }
+
+    // Adds delta times the weights of input nodeIn to one row of weighted inputs
+    void addInputDelta(int nodeIn, double delta, double[] weightedInputs) {
+        int stride = numNodesIn + 1;
+        for (int nodeOut = 0, w = nodeIn; nodeOut < numNodesOut; nodeOut++, w += stride) {
+            weightedInputs[nodeOut] += delta * weights[w];
+        }
+    }
+
     public double[] accumulateGradients(double[] subdeltas, double[] prevInput) {
+        double[] deltas = subdeltas.clone();
         double[] newSubDeltas = new double[numNodesIn];
-        for (int nodeOut = 0; nodeOut < numNodesOut; nodeOut++) {
-            int base = nodeOut * (numNodesIn + 1);
-            double delta = subdeltas[nodeOut] * activationFunction.derivative(weightedInputs[nodeOut]);
-            for (int nodeIn = 0; nodeIn < numNodesIn; nodeIn++) {
-                newSubDeltas[nodeIn] += delta * weights[base + nodeIn];
-                gradients[base + nodeIn] += delta * prevInput[nodeIn];
-            }
-            gradients[base + numNodesIn] += delta; // bias
-        }
+        accumulateGradients(deltas, weightedInputs, activations, prevInput, 1, gradients, newSubDeltas);
         return newSubDeltas;
     }
 
-    public void applyGradients(double learningRate, int batchSize) {
-        double scale = learningRate / batchSize;
+    /**
+     * Batched backward pass over the rows produced by the matching
+     * {@link #calculateOutputs(double[], int, double[], double[])} call, given its
+     * weighted inputs and activations. {@code subdeltas} is overwritten with the neuron deltas and the weight
+     * gradients are added to {@code gradients}, which lets every training thread
+     * accumulate into its own buffer. The deltas for the previous layer are
+     * written to {@code newSubDeltas} unless it is null.
+     */
+    public void accumulateGradients(double[] subdeltas, double[] weightedInputs, double[] activations,
+                                    double[] prevInputs, int batchSize, double[] gradients, double[] newSubDeltas) {
+        activationFunction.backpropagate(weightedInputs, activations, subdeltas, batchSize, numNodesOut);
+        accumulateWeightedInputGradients(subdeltas, prevInputs, batchSize, gradients, newSubDeltas);
+    }
 
-        for (int i = 0; i < weights.length; i++) {
-            weights[i] -= scale * gradients[i];
-            gradients[i] = 0.0;
+    // Same as above for deltas already taken w.r.t. the weighted inputs, e.g. by LossFunction.outputDeltas
+    public void accumulateWeightedInputGradients(double[] deltas, double[] prevInputs, int batchSize,
+                                                 double[] gradients, double[] newSubDeltas) {
+        KERNELS.accumulateWeightGradients(deltas, prevInputs, batchSize, numNodesIn, numNodesOut, gradients);
+        if (newSubDeltas != null) {
+            KERNELS.propagateDeltas(deltas, weights, batchSize, numNodesIn, numNodesOut, newSubDeltas);
         }
     }
 
+    public void applyGradients(double learningRate, int batchSize) {
+        applyGradients(learningRate, batchSize, gradients);
+    }
+
+    // Apply externally accumulated gradients and reset them for the next batch
+    public void applyGradients(double learningRate, int batchSize, double[] gradients) {
+        KERNELS.applyGradients(weights, gradients, learningRate / batchSize);
+    }
+
+    // Let optimizer update this layer (index layer of its network) from the gradients and reset them
+    public void applyGradients(Optimizer optimizer, int layer, double learningRate, int batchSize, double[] gradients) {
+        optimizer.update(layer, weights, gradients, learningRate, batchSize);
+    }
+
+    public int numParameters() {
+        return weights.length;
+    }
+
     public void setActivationFunction(ActivationFunction activationFunction) {
         this.activationFunction = activationFunction;
     }
 
+    public ActivationFunction getActivationFunction() {
+        return activationFunction;
+    }
+
+    public double[] getWeights() {
+        return weights;
+    }
+
     public double[] getActivations() {
         return activations;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,88 @@
+package ANN;
+
+import Activation.ActivationFunction;
+import Data.DataHandler;
+
+import java.nio.DoubleBuffer;
+
+/**
+ * Inference over weights that live outside the heap, typically a memory-mapped
+ * model file (see {@code utils.ModelIO.map}). Weights are read straight from
+ * the buffers in the {@link Layer} layout, so the predictions match the heap
+ * network (bit for bit with the scalar kernels). Thread-safe; scratch lives in
+ * an {@link InferenceContext}.
+ */
+public final class MappedPredictor {
+    private final int[] layerSizes;
+    private final ActivationFunction[] activationFunctions;
+    private final DoubleBuffer[] weights;
+    private final ThreadLocal<InferenceContext> contexts = ThreadLocal.withInitial(this::newContext);
+
+    public MappedPredictor(int[] layerSizes, ActivationFunction[] activationFunctions, DoubleBuffer[] weights) {
+        int numLayers = layerSizes.length - 1;
+        if (numLayers < 1 || activationFunctions.length != numLayers || weights.length != numLayers) {
+            throw new IllegalArgumentException("Number of layers doesn't match the weights");
+        }
+        for (int l = 0; l < numLayers; l++) {
+            if (weights[l].capacity() != (layerSizes[l] + 1) * layerSizes[l + 1]) {
+                throw new IllegalArgumentException("Number of weights doesn't match the size of layer " + l);
+            }
+        }
+        this.layerSizes = layerSizes.clone();
+        this.activationFunctions = activationFunctions.clone();
+        this.weights = weights.clone();
+    }
+
+    public InferenceContext newContext() {
+        return new InferenceContext(layerSizes, 1);
+    }
+
+    /**
+     * Runs a forward pass and returns the output activations. The returned array
+     * belongs to {@code context} and is overwritten by its next use.
+     */
+    public double[] predict(double[] inputs, InferenceContext context) {
+        DataHandler.validateInputRow(inputs);
+        if (inputs.length != numFeatures()) {
+            throw new IllegalArgumentException("Number of features doesn't match the ANN");
+        }
+        for (int l = 0; l < weights.length; l++) {
+            int numNodesIn = layerSizes[l];
+            int numNodesOut = layerSizes[l + 1];
+            DoubleBuffer layerWeights = weights[l];
+            ActivationFunction activationFunction = activationFunctions[l];
+            double[] weightedInputs = context.weightedInputs[l];
+            double[] activations = context.activations[l];
+            for (int nodeOut = 0; nodeOut < numNodesOut; nodeOut++) {
+                int base = nodeOut * (numNodesIn + 1);
+                double weightedInput = 0.0;
+                for (int nodeIn = 0; nodeIn < numNodesIn; nodeIn++) {
+                    weightedInput += inputs[nodeIn] * layerWeights.get(base + nodeIn);
+                }
+                weightedInput += layerWeights.get(base + numNodesIn); // bias
+                weightedInputs[nodeOut] = weightedInput;
+            }
+            activationFunction.activate(weightedInputs, activations, 1, numNodesOut);
+            inputs = activations;
+        }
+        return inputs;
+    }
+
+    public int classify(double[] inputs, InferenceContext context) {
+        double[] outputs = predict(inputs, context);
+        return NeuralNetwork.maxValueIndex(outputs, 0, numClasses());
+    }
+
+    // Uses a context cached per calling thread
+    public int classify(double[] inputs) {
+        return classify(inputs, contexts.get());
+    }
+
+    public int numFeatures() {
+        return layerSizes[0];
+    }
+
+    public int numClasses() {
+        return layerSizes[layerSizes.length - 1];
+    }
+}
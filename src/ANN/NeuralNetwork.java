@@ -2,21 +2,38 @@ package ANN;
 
 import Activation.ActivationFunction;
 import Activation.Sigmoid;
+import Checkpointing.Checkpoint;
+import Checkpointing.Checkpointer;
+import Data.BatchSource;
 import Data.DataHandler;
+import Data.Dataset;
+import Data.DatasetSource;
+import Data.ValidatedDataset;
 import Initialization.RandomUniform;
 import Initialization.WeightInitializer;
 import Loss.LossFunction;
 import Loss.MeanSquaredError;
+import Optimization.ConstantRate;
+import Optimization.LearningRateSchedule;
+import Optimization.Optimizer;
+import Optimization.SGD;
+import Telemetry.Phase;
+import Telemetry.TrainingTelemetry;
+import utils.SeededRandom;
+import utils.WorkerPools;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serial;
 import java.io.Serializable;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 public class NeuralNetwork implements Serializable {
     @Serial
     private static final long serialVersionUID = 1L;
+    private static final int MIN_SHARD_SIZE = 4;
     private final Layer[] layers;
     private final int numFeatures;
     private final int numClasses;
@@ -24,6 +41,21 @@ public class NeuralNetwork implements Serializable {
     private double learningRate = 0.1;
     private int batchSize = 100;
     private int epochs = 10;
+    private int threads = 1;
+    private transient Optimizer optimizer = new SGD();
+    private transient LearningRateSchedule learningRateSchedule = new ConstantRate();
+    private transient TrainingListener trainingListener = TrainingListener.console();
+    private transient ValidatedDataset validationData;
+    private transient int validationFrequency = 1;
+    private transient int validationSampleSize;
+    // shuffles the rows of train(Dataset) calls; every call gets a stream split from it
+    private transient SeededRandom random = new SeededRandom();
+    private transient SeededRandom validationRandom = new SeededRandom();
+    private transient TrainingTelemetry telemetry;
+    private transient Checkpointer checkpointer;
+    private transient EarlyStopping earlyStopping;
+    private transient AdaptiveBatchSize adaptiveBatchSize;
+    private transient TrainingBuffers trainingBuffers;
 
     // Create the neural network
     public NeuralNetwork(int[] layerSizes, WeightInitializer weightInitializer, ActivationFunction activationFunction) {
@@ -44,6 +76,21 @@ public class NeuralNetwork implements Serializable {
         }
     }
 
+    // Create the neural network from existing layers, e.g. ones read back from a model file
+    public NeuralNetwork(Layer[] layers) {
+        if (layers.length < 1) {
+            throw new IllegalArgumentException("Number of layers should be at least 1");
+        }
+        for (int i = 1; i < layers.length; i++) {
+            if (layers[i].numNodesIn != layers[i - 1].numNodesOut) {
+                throw new IllegalArgumentException("Layer " + i + " doesn't match the size of the previous layer");
+            }
+        }
+        this.layers = layers.clone();
+        numFeatures = layers[0].numNodesIn;
+        numClasses = layers[layers.length - 1].numNodesOut;
+    }
+
     public NeuralNetwork(int[] layerSizes, WeightInitializer weightInitializer) {
         this(layerSizes, weightInitializer, new Sigmoid());
     }
@@ -52,6 +99,22 @@ public class NeuralNetwork implements Serializable {
         this(layerSizes, new RandomUniform(), new Sigmoid());
     }
 
+    // Restore defaults for transient fields and fields missing from older model files
+    @Serial
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        lossFunction = new MeanSquaredError();
+        optimizer = new SGD();
+        learningRateSchedule = new ConstantRate();
+        trainingListener = TrainingListener.console();
+        validationFrequency = 1;
+        random = new SeededRandom();
+        validationRandom = new SeededRandom();
+        if (threads < 1) {
+            threads = 1;
+        }
+    }
+
     private void validateInputs(double[][] inputs) {
         DataHandler.validateInputs(inputs);
         if (inputs[0].length != numFeatures) {
@@ -59,12 +122,28 @@ public class NeuralNetwork implements Serializable {
         }
     }
 
+    private void validateInputs(Dataset inputs) {
+        DataHandler.validateInputs(inputs);
+        if (inputs.numFeatures() != numFeatures) {
+            throw new IllegalArgumentException("Number of features doesn't match the ANN");
+        }
+    }
+
+    // Constant time unless strict validation is on
+    private void validateInputs(ValidatedDataset inputs, boolean labelled) {
+        inputs.requireCompatible(numFeatures, numClasses, labelled);
+    }
+
     private int maxValueIndex(double[] values) {
+        return maxValueIndex(values, 0, values.length);
+    }
+
+    static int maxValueIndex(double[] values, int offset, int length) {
         double maxValue = Double.NEGATIVE_INFINITY;
         int index = 0;
-        for (int i = 0; i < values.length; i++) {
-            if (values[i] > maxValue) {
-                maxValue = values[i];
+        for (int i = 0; i < length; i++) {
+            if (values[offset + i] > maxValue) {
+                maxValue = values[offset + i];
                 index = i;
             }
         }
@@ -78,17 +157,48 @@ public class NeuralNetwork implements Serializable {
         return inputs;
     }
 
-    private void backwardPropagation(double[] trainingData, double[] expected) {
-        double[] output = feedForward(trainingData);
-        double[] subdeltas = new double[output.length];
-        for (int i = 0; i < output.length; i++) {
-            double costDerivative = lossFunction.derivative(output[i], expected[i]);
-            subdeltas[i] = costDerivative;
+    // Forward and backward pass over a whole mini-batch stored row-major in batch.inputs
+    private void backwardPropagation(BatchBuffers batch, int batchSize) {
+        boolean timed = telemetry != null;
+        long start = timed ? System.nanoTime() : 0L;
+        double[] inputs = batch.inputs;
+        for (int l = 0; l < layers.length; l++) {
+            layers[l].calculateOutputs(inputs, batchSize, batch.weightedInputs[l], batch.activations[l]);
+            inputs = batch.activations[l];
         }
-        for (int i = layers.length - 1; i > 0; i--) {
-            subdeltas = layers[i].accumulateGradients(subdeltas, layers[i - 1].getActivations());
+        long forwardEnd = timed ? System.nanoTime() : 0L;
+
+        // output deltas w.r.t. the weighted inputs, fused with the activation where the loss supports it
+        int last = layers.length - 1;
+        double[] subdeltas = batch.deltas;
+        batch.loss += lossFunction.outputDeltas(layers[last].getActivationFunction(), batch.weightedInputs[last],
+                inputs, batch.labels, batchSize, numClasses, subdeltas);
+        // running metrics, as seen by this batch before its update
+        for (int row = 0; row < batchSize; row++) {
+            if (maxValueIndex(inputs, row * numClasses, numClasses) == batch.labels[row]) {
+                batch.correct++;
+            }
+        }
+
+        double[] newSubDeltas = batch.nextDeltas;
+        for (int l = last; l >= 0; l--) {
+            double[] prevInputs = l > 0 ? batch.activations[l - 1] : batch.inputs;
+            double[] prevDeltas = l > 0 ? newSubDeltas : null;
+            if (l == last) {
+                layers[l].accumulateWeightedInputGradients(subdeltas, prevInputs, batchSize, batch.gradients[l],
+                        prevDeltas);
+            } else {
+                layers[l].accumulateGradients(subdeltas, batch.weightedInputs[l], batch.activations[l], prevInputs,
+                        batchSize, batch.gradients[l], prevDeltas);
+            }
+            double[] swap = subdeltas;
+            subdeltas = newSubDeltas;
+            newSubDeltas = swap;
+        }
+        if (timed) {
+            batch.forwardNanos += forwardEnd - start;
+            batch.backwardNanos += System.nanoTime() - forwardEnd;
         }
-        layers[0].accumulateGradients(subdeltas, trainingData);
     }
 
     public void train(double[][] trainingData, int[] labelIndices) {
@@ -97,50 +207,299 @@ public class NeuralNetwork implements Serializable {
         if (trainingData.length != labelIndices.length) {
             throw new IllegalArgumentException("Number of Inputs doesn't match the outputs");
         }
-        int n = trainingData.length;
+        trainEpochs(new DatasetSource(Dataset.wrap(trainingData, labelIndices), random.split()), null);
+    }
+
+    public void train(Dataset trainingData) {
+        validateInputs(trainingData);
+        DataHandler.validateLabels(trainingData.labels(), numClasses);
+        trainEpochs(new DatasetSource(trainingData, random.split()), null);
+    }
+
+    // Same as train(Dataset) without scanning the rows again
+    public void train(ValidatedDataset trainingData) {
+        validateInputs(trainingData, true);
+        trainEpochs(new DatasetSource(trainingData.dataset(), random.split()), null);
+    }
+
+    /**
+     * Trains on rows streamed from {@code source}, one mini-batch at a time, so
+     * the training set never has to be in memory. The source is not closed.
+     */
+    public void train(BatchSource source) {
+        if (source.numFeatures() != numFeatures) {
+            throw new IllegalArgumentException("Number of features doesn't match the ANN");
+        }
+        if (source.size() < 1) {
+            throw new IllegalArgumentException("Inputs array is empty.");
+        }
+        trainEpochs(source, null);
+    }
+
+    /**
+     * Continues training from a checkpoint written while training on the same
+     * rows: restores the weights, optimizer state, visiting order, RNGs and the
+     * early stopping and adaptive batch size state, and runs the remaining
+     * epochs as if training had never stopped. The batch
+     * size, optimizer and learning-rate settings must match the original run.
+     */
+    public void resume(Checkpoint checkpoint, Dataset trainingData) {
+        validateInputs(trainingData);
+        DataHandler.validateLabels(trainingData.labels(), numClasses);
+        trainEpochs(new DatasetSource(trainingData, random.split()), checkpoint);
+    }
+
+    // Sources that can't save their state only get checkpoints at epoch ends and start the next epoch afresh
+    public void resume(Checkpoint checkpoint, BatchSource source) {
+        if (source.numFeatures() != numFeatures) {
+            throw new IllegalArgumentException("Number of features doesn't match the ANN");
+        }
+        trainEpochs(source, checkpoint);
+    }
+
+    // Epoch loss and accuracy come from the training forward passes; see EpochMetrics
+    private void trainEpochs(BatchSource source, Checkpoint resumeFrom) {
+        if (validationData != null) {
+            validateInputs(validationData, true);
+        } else if (earlyStopping != null || adaptiveBatchSize != null) {
+            throw new IllegalArgumentException("Early stopping and adaptive batch sizes need validation data");
+        }
+        if (resumeFrom != null) {
+            restore(resumeFrom, source);
+        }
+        int n = source.size();
+        // the adaptive batch size starts from the checkpoint's when resuming
+        int currentBatchSize = resumeFrom != null ? resumeFrom.batchSize() : batchSize;
+        if (adaptiveBatchSize != null) {
+            if (resumeFrom != null) {
+                adaptiveBatchSize.restore(resumeFrom.batchSizeState(), currentBatchSize);
+            } else {
+                adaptiveBatchSize.start(currentBatchSize);
+            }
+        }
+        if (earlyStopping != null) {
+            if (resumeFrom != null) {
+                earlyStopping.restore(resumeFrom.earlyStoppingState(), layers);
+            } else {
+                earlyStopping.start();
+            }
+        }
+        TrainingBuffers buffers = trainingBuffers(Math.min(currentBatchSize, n));
+        // shared with the other parallel passes; a pool per call would start and stop its threads every time
+        ForkJoinPool pool = buffers.shards > 1 ? WorkerPools.get(buffers.shards) : null;
+        int[] parameterCounts = new int[layers.length];
+        for (int l = 0; l < layers.length; l++) {
+            parameterCounts[l] = layers[l].numParameters();
+        }
+        optimizer.initialize(parameterCounts);
 
-        List<Integer> indices = new ArrayList<>(n);
-        for (int i = 0; i < n; i++) indices.add(i);
+        TrainingTelemetry telemetry = this.telemetry;
+        boolean timed = telemetry != null;
+        Checkpointer checkpointer = this.checkpointer;
+        int firstEpoch = resumeFrom != null ? resumeFrom.epoch() : 0;
+        // a checkpoint from a run that already stopped early runs no more epochs
+        int lastEpoch = earlyStopping != null && earlyStopping.stoppedEpoch() > 0 ? earlyStopping.stoppedEpoch()
+                : epochs;
 
-        for (int epoch = 0; epoch < epochs; epoch++) {
-            Collections.shuffle(indices);
+        for (int epoch = firstEpoch; epoch < lastEpoch; epoch++) {
+            int capacity = buffers.capacity;
+            int batchesPerEpoch = (n + capacity - 1) / capacity;
+            ShardTask root = buffers.root;
+            double[] batchInputs = buffers.batchInputs;
+            int[] batchLabels = buffers.batchLabels;
+            if (timed) {
+                telemetry.startEpoch(epoch + 1);
+            }
+            // a mid-epoch checkpoint continues its epoch where the source left off
+            boolean resumed = resumeFrom != null && epoch == firstEpoch && resumeFrom.batch() > 0;
+            if (!resumed) {
+                source.startEpoch();
+            }
+            double epochLoss = resumed ? resumeFrom.epochLoss() : 0.0;
+            int trainCorrect = resumed ? resumeFrom.epochCorrect() : 0;
+            int seen = resumed ? resumeFrom.epochSeen() : 0;
+            int batch = resumed ? resumeFrom.batch() : 0;
 
-            for (int i = 0; i < n; i += batchSize) {
-                int end = Math.min(i + batchSize, n);
+            long batchStart = timed ? System.nanoTime() : 0L;
+            int rows;
+            while ((rows = source.next(batchInputs, batchLabels, capacity)) > 0) {
+                long computeStart = timed ? System.nanoTime() : 0L;
+                for (int r = 0; r < rows; r++) {
+                    if (batchLabels[r] < 0 || batchLabels[r] >= numClasses) {
+                        throw new IllegalArgumentException("Invalid label at index " + (seen + r) + ": "
+                                + batchLabels[r]);
+                    }
+                }
 
-                for (int j = i; j < end; j++) {
-                    int idx = indices.get(j);
-                    double[] expected = oneHot(labelIndices[idx]);
-                    backwardPropagation(trainingData[idx], expected);
+                root.prepare(batchInputs, batchLabels, rows);
+                if (pool != null) {
+                    pool.invoke(root);
+                } else {
+                    root.compute();
                 }
 
-                for (Layer layer : layers) {
-                    layer.applyGradients(learningRate, end - i);
+                double rate = learningRateSchedule.learningRate(learningRate,
+                        epoch + (double) batch / batchesPerEpoch, epochs);
+                batch++;
+                long updateStart = timed ? System.nanoTime() : 0L;
+                double gradientNorm = timed ? gradientNorm(root.buffers.gradients) / rows : 0.0;
+                optimizer.beginStep();
+                for (int l = 0; l < layers.length; l++) {
+                    layers[l].applyGradients(optimizer, l, rate, rows, root.buffers.gradients[l]);
+                }
+                epochLoss += root.buffers.loss;
+                trainCorrect += root.buffers.correct;
+                seen += rows;
+                if (timed) {
+                    long end = System.nanoTime();
+                    telemetry.recordBatch(rows, computeStart - batchStart, root.buffers.forwardNanos,
+                            root.buffers.backwardNanos, end - updateStart, end - batchStart, gradientNorm,
+                            root.buffers.loss / rows);
+                    batchStart = end;
+                }
+                if (checkpointer != null && batch < batchesPerEpoch && checkpointer.dueAfterBatch(batch)) {
+                    Serializable sourceState = source.saveState();
+                    if (sourceState != null) {
+                        checkpointer.save(checkpoint(epoch, batch, currentBatchSize, sourceState, epochLoss,
+                                trainCorrect, seen));
+                    }
                 }
             }
 
-            double epochLoss = 0.0;
-            int trainCorrect = 0;
-
-            for (int i = 0; i < n; i++) {
-                double[] output = feedForward(trainingData[i]);
-                double[] expected = oneHot(labelIndices[i]);
-                epochLoss += lossFunction.calculateLoss(output, expected);
-                if (maxValueIndex(output) == labelIndices[i]) {
-                    trainCorrect++;
+            boolean stop = false;
+            if (trainingListener != null || earlyStopping != null || adaptiveBatchSize != null) {
+                long validationStart = timed ? System.nanoTime() : 0L;
+                EpochMetrics metrics = epochMetrics(epoch, epochLoss, trainCorrect, seen);
+                if (timed) {
+                    telemetry.record(Phase.VALIDATION, System.nanoTime() - validationStart);
+                }
+                if (trainingListener != null) {
+                    trainingListener.onEpochEnd(metrics);
                 }
+                if (metrics.hasValidation()) {
+                    stop = earlyStopping != null && earlyStopping.update(metrics, layers);
+                    if (adaptiveBatchSize != null) {
+                        currentBatchSize = adaptiveBatchSize.update(metrics);
+                    }
+                }
+            }
+            if (checkpointer != null && checkpointer.dueAfterEpoch(epoch + 1)) {
+                checkpointer.save(checkpoint(epoch + 1, 0, currentBatchSize, source.saveState(), 0.0, 0, 0));
+            }
+            if (timed) {
+                telemetry.endEpoch();
             }
+            if (stop) {
+                lastEpoch = epoch + 1;
+                break;
+            }
+            if (Math.min(currentBatchSize, n) != buffers.capacity) {
+                int shards = buffers.shards;
+                buffers = trainingBuffers(Math.min(currentBatchSize, n));
+                if (buffers.shards != shards) {
+                    pool = buffers.shards > 1 ? WorkerPools.get(buffers.shards) : null;
+                }
+            }
+        }
+        boolean restored = earlyStopping != null && earlyStopping.finish(layers, lastEpoch);
+        if (restored && checkpointer != null) {
+            // the newest checkpoint would otherwise hold the last weights instead of the restored ones
+            checkpointer.save(checkpoint(lastEpoch, 0, currentBatchSize, source.saveState(), 0.0, 0, 0));
+        }
+        if (checkpointer != null) {
+            checkpointer.flush();
+        }
+    }
 
-            epochLoss /= n;
-            double trainAcc = (double) trainCorrect / n;
+    // Copies of everything training mutates; the writer serializes them while training goes on
+    private Checkpoint checkpoint(int epoch, int batch, int batchSize, Serializable sourceState, double epochLoss,
+                                  int epochCorrect, int epochSeen) {
+        double[][] weights = new double[layers.length][];
+        for (int l = 0; l < layers.length; l++) {
+            weights[l] = layers[l].getWeights().clone();
+        }
+        return new Checkpoint(epoch, batch, batchSize, weights, optimizer.snapshot(), sourceState,
+                validationRandom.copy(), epochLoss, epochCorrect, epochSeen,
+                earlyStopping != null ? earlyStopping.snapshot() : null,
+                adaptiveBatchSize != null ? adaptiveBatchSize.snapshot() : null);
+    }
 
-            System.out.printf("Epoch %d | Loss: %.6f | Train Acc: %.4f\n", epoch + 1, epochLoss, trainAcc);
+    private void restore(Checkpoint checkpoint, BatchSource source) {
+        if (adaptiveBatchSize == null ? checkpoint.batchSize() != batchSize : checkpoint.batchSize() < 1) {
+            throw new IllegalArgumentException("Batch size doesn't match the checkpoint");
+        }
+        double[][] weights = checkpoint.weights();
+        if (weights.length != layers.length) {
+            throw new IllegalArgumentException("Checkpoint doesn't match the ANN");
         }
+        for (int l = 0; l < layers.length; l++) {
+            if (weights[l].length != layers[l].numParameters()) {
+                throw new IllegalArgumentException("Checkpoint doesn't match the ANN");
+            }
+        }
+        if (checkpoint.batch() > 0 && checkpoint.sourceState() == null) {
+            throw new IllegalArgumentException("Mid-epoch checkpoint has no source state");
+        }
+        optimizer.restore(checkpoint.optimizerState());
+        if (checkpoint.sourceState() != null) {
+            source.restoreState(checkpoint.sourceState());
+        }
+        for (int l = 0; l < layers.length; l++) {
+            System.arraycopy(weights[l], 0, layers[l].getWeights(), 0, weights[l].length);
+        }
+        validationRandom = checkpoint.validationRandom().copy();
     }
 
-    private int classifyInternal(double[] inputs) {
-        double[] outputs = feedForward(inputs);
-        return maxValueIndex(outputs);
+    // L2 norm over the gradients of all layers
+    private static double gradientNorm(double[][] gradients) {
+        double sum = 0.0;
+        for (double[] layer : gradients) {
+            for (double g : layer) {
+                sum += g * g;
+            }
+        }
+        return Math.sqrt(sum);
+    }
+
+    // Validates on the configured validation data if this epoch is due for it
+    private EpochMetrics epochMetrics(int epoch, double loss, int correct, int seen) {
+        int samples = Math.max(seen, 1);
+        boolean due = (epoch + 1) % validationFrequency == 0 || epoch == epochs - 1;
+        if (validationData == null || !due) {
+            return new EpochMetrics(epoch + 1, loss / samples, (double) correct / samples, seen,
+                    Double.NaN, Double.NaN, 0);
+        }
+        Dataset rows = validationRows();
+        int[] validationCorrect = new int[1];
+        double validationLoss = new Predictor(layers).evaluateRows(rows, threads, lossFunction,
+                (offset, predictions, count) -> {
+                    for (int i = 0; i < count; i++) {
+                        if (predictions[i] == rows.label(offset + i)) {
+                            validationCorrect[0]++;
+                        }
+                    }
+                });
+        return new EpochMetrics(epoch + 1, loss / samples, (double) correct / samples, seen,
+                validationLoss / rows.rows(), (double) validationCorrect[0] / rows.rows(), rows.rows());
+    }
+
+    // All validation rows, or a new random sample of validationSampleSize of them
+    private Dataset validationRows() {
+        int rows = validationData.rows();
+        if (validationSampleSize == 0 || validationSampleSize >= rows) {
+            return validationData.dataset();
+        }
+        int[] order = new int[rows];
+        for (int i = 0; i < rows; i++) {
+            order[i] = i;
+        }
+        for (int i = 0; i < validationSampleSize; i++) {
+            int j = i + validationRandom.nextInt(rows - i);
+            int swap = order[i];
+            order[i] = order[j];
+            order[j] = swap;
+        }
+        return validationData.dataset().subset(Arrays.copyOf(order, validationSampleSize));
     }
 
     public int classify(double[] inputs) {
@@ -154,11 +513,36 @@ public class NeuralNetwork implements Serializable {
 
     public int[] classifyAll(double[][] inputs) {
         validateInputs(inputs);
-        int[] predictions = new int[inputs.length];
-        for (int i = 0; i < inputs.length; i++) {
-            predictions[i] = classifyInternal(inputs[i]);
-        }
-        return predictions;
+        return classifyRows(Dataset.wrap(inputs));
+    }
+
+    public int[] classifyAll(Dataset inputs) {
+        validateInputs(inputs);
+        return classifyRows(inputs);
+    }
+
+    public int[] classifyAll(ValidatedDataset inputs) {
+        validateInputs(inputs, false);
+        return classifyRows(inputs.dataset());
+    }
+
+    /**
+     * Streams the predictions for {@code inputs} to {@code consumer} in row order,
+     * one chunk at a time, without materializing the full result array.
+     */
+    public void classifyAll(double[][] inputs, PredictionConsumer consumer) {
+        validateInputs(inputs);
+        new Predictor(layers).classifyRows(Dataset.wrap(inputs), threads, consumer);
+    }
+
+    public void classifyAll(Dataset inputs, PredictionConsumer consumer) {
+        validateInputs(inputs);
+        new Predictor(layers).classifyRows(inputs, threads, consumer);
+    }
+
+    public void classifyAll(ValidatedDataset inputs, PredictionConsumer consumer) {
+        validateInputs(inputs, false);
+        new Predictor(layers).classifyRows(inputs.dataset(), threads, consumer);
     }
 
     public double evaluateAccuracy(double[][] inputs, int[] labelIndices) {
@@ -167,14 +551,58 @@ public class NeuralNetwork implements Serializable {
         if (inputs.length != labelIndices.length) {
             throw new IllegalArgumentException("Number of Inputs doesn't match the outputs");
         }
-        int correct = 0;
-        for (int i = 0; i < inputs.length; i++) {
-            int predicted = classifyInternal(inputs[i]);
-            if (predicted == labelIndices[i]) {
-                correct++;
+        return accuracy(Dataset.wrap(inputs, labelIndices));
+    }
+
+    public double evaluateAccuracy(Dataset inputs) {
+        validateInputs(inputs);
+        DataHandler.validateLabels(inputs.labels(), numClasses);
+        return accuracy(inputs);
+    }
+
+    public double evaluateAccuracy(ValidatedDataset inputs) {
+        validateInputs(inputs, true);
+        return accuracy(inputs.dataset());
+    }
+
+    private int[] classifyRows(Dataset inputs) {
+        int[] predictions = new int[inputs.rows()];
+        new Predictor(layers).classifyRows(inputs, threads,
+                (offset, chunk, count) -> System.arraycopy(chunk, 0, predictions, offset, count));
+        return predictions;
+    }
+
+    private double accuracy(Dataset inputs) {
+        int[] correct = new int[1];
+        new Predictor(layers).classifyRows(inputs, threads, (offset, predictions, count) -> {
+            for (int i = 0; i < count; i++) {
+                if (predictions[i] == inputs.label(offset + i)) {
+                    correct[0]++;
+                }
             }
+        });
+        return (double) correct[0] / inputs.rows();
+    }
+
+    /**
+     * Returns a thread-safe snapshot of the current weights for inference.
+     * Training this network afterwards does not affect the returned predictor.
+     */
+    public Predictor freeze() {
+        Layer[] frozen = new Layer[layers.length];
+        for (int i = 0; i < layers.length; i++) {
+            frozen[i] = layers[i].freeze();
         }
-        return (double) correct / inputs.length;
+        return new Predictor(frozen);
+    }
+
+    // Inference-only copy with float32 or int8 weights
+    public QuantizedNetwork quantize(Precision precision) {
+        return new QuantizedNetwork(layers, precision);
+    }
+
+    public Layer[] getLayers() {
+        return layers.clone();
     }
 
     public void setLossFunction(LossFunction lossFunction) {
@@ -187,6 +615,11 @@ public class NeuralNetwork implements Serializable {
         }
     }
 
+    // Activation of the output layer only, e.g. Softmax to pair with CrossEntropy
+    public void setOutputActivationFunction(ActivationFunction activationFunction) {
+        layers[layers.length - 1].setActivationFunction(activationFunction);
+    }
+
     public void setBatchSize(int batchSize) {
         this.batchSize = batchSize;
     }
@@ -195,13 +628,220 @@ public class NeuralNetwork implements Serializable {
         this.epochs = epochs;
     }
 
+    /**
+     * Number of threads used by {@link #train}, {@link #classifyAll} and
+     * {@link #evaluateAccuracy}. For inference the rows are split into chunks
+     * that run in parallel; results do not depend on the thread count. For
+     * training each mini-batch is split into up to this many shards (at least
+     * {@value #MIN_SHARD_SIZE} rows each) whose gradients are reduced in a fixed
+     * tree order, so runs with the same thread count are repeatable. Compared to
+     * a single-threaded run only the order of the per-batch gradient sums
+     * changes; weights agree to within rounding (about 1e-12 relative after one
+     * batch).
+     */
+    public void setThreads(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Number of threads can't be less than 1");
+        }
+        this.threads = threads;
+    }
+
     public void setLearningRate(double learningRate) {
         this.learningRate = learningRate;
     }
 
-    private double[] oneHot(int label) {
-        double[] y = new double[numClasses];
-        y[label] = 1.0;
-        return y;
+    // Optimizer state carries over between train() calls on this network and is not saved with it
+    public void setOptimizer(Optimizer optimizer) {
+        this.optimizer = optimizer;
+    }
+
+    // Scales the learning rate per mini-batch; the default keeps it constant
+    public void setLearningRateSchedule(LearningRateSchedule learningRateSchedule) {
+        this.learningRateSchedule = learningRateSchedule;
+    }
+
+    // Receives every epoch's metrics; null trains silently
+    public void setTrainingListener(TrainingListener trainingListener) {
+        this.trainingListener = trainingListener;
+    }
+
+    /**
+     * Rows to evaluate on after training epochs, in parallel on the threads set
+     * by {@link #setThreads}; null turns validation off. The results arrive in
+     * {@link EpochMetrics} next to the training metrics. The rows are
+     * validated once here instead of at the start of every train call.
+     */
+    public void setValidationData(Dataset validationData) {
+        this.validationData = validationData == null ? null : ValidatedDataset.of(validationData);
+    }
+
+    // Validate after every frequency-th epoch and after the last one
+    public void setValidationFrequency(int frequency) {
+        if (frequency < 1) {
+            throw new IllegalArgumentException("Validation frequency can't be less than 1");
+        }
+        this.validationFrequency = frequency;
+    }
+
+    // Validate on a new random sample of this many rows each time; 0 uses all rows
+    public void setValidationSampleSize(int sampleSize) {
+        if (sampleSize < 0) {
+            throw new IllegalArgumentException("Validation sample size can't be negative");
+        }
+        this.validationSampleSize = sampleSize;
+    }
+
+    /**
+     * Seeds the shuffling of the training rows and the sampling of validation
+     * rows; initial weights are seeded by the initializer, e.g.
+     * {@code new Xavier(seed)}. With the same seeds, settings and number of
+     * threads, training gives bit-identical weights and metrics.
+     */
+    public void setSeed(long seed) {
+        random = new SeededRandom(seed);
+        validationRandom = random.split();
+    }
+
+    // Stops train calls once validation stops improving; needs validation data, null turns it off
+    public void setEarlyStopping(EarlyStopping earlyStopping) {
+        this.earlyStopping = earlyStopping;
+    }
+
+    // Grows the batch size from setBatchSize when validation plateaus; needs validation data, null turns it off
+    public void setAdaptiveBatchSize(AdaptiveBatchSize adaptiveBatchSize) {
+        this.adaptiveBatchSize = adaptiveBatchSize;
+    }
+
+    // Writes checkpoints during train and resume calls; null, the default, turns checkpointing off
+    public void setCheckpointer(Checkpointer checkpointer) {
+        this.checkpointer = checkpointer;
+    }
+
+    // Times the phases of every epoch; null, the default, leaves training uninstrumented
+    public void setTelemetry(TrainingTelemetry telemetry) {
+        this.telemetry = telemetry;
+    }
+
+    // Buffers for batches of up to capacity rows, reused while the capacity and shard count stay the same
+    private TrainingBuffers trainingBuffers(int capacity) {
+        int shards = Math.max(1, Math.min(threads, capacity / MIN_SHARD_SIZE));
+        TrainingBuffers buffers = trainingBuffers;
+        if (buffers == null || buffers.capacity != capacity || buffers.shards != shards) {
+            buffers = new TrainingBuffers(capacity, shards);
+            trainingBuffers = buffers;
+        }
+        return buffers;
+    }
+
+    /*
+     * Shard tree and batch staging kept between train() calls with the same batch
+     * capacity and shard count, so repeated calls allocate nothing per sample.
+     */
+    private final class TrainingBuffers {
+        final int capacity;
+        final int shards;
+        final ShardTask root;
+        final double[] batchInputs;
+        final int[] batchLabels;
+
+        TrainingBuffers(int capacity, int shards) {
+            this.capacity = capacity;
+            this.shards = shards;
+            root = new ShardTask(0, shards, shards, (capacity + shards - 1) / shards);
+            // a single shard trains straight from the rows the source copied into its buffers
+            batchInputs = shards == 1 ? root.buffers.inputs : new double[capacity * numFeatures];
+            batchLabels = shards == 1 ? root.buffers.labels : new int[capacity];
+        }
+    }
+
+    /*
+     * One node of a fixed binary tree over the shards of a mini-batch. Leaves run
+     * forward/backward on their rows into their own buffers; inner nodes add the
+     * right subtree's gradients into the left one, so the summation order depends
+     * only on the shard count and never on thread scheduling.
+     */
+    private final class ShardTask extends RecursiveAction {
+        @Serial
+        private static final long serialVersionUID = 1L;
+        private final int shard;
+        private final int shards;
+        private final ShardTask left;
+        private final ShardTask right;
+        final BatchBuffers buffers;
+        private double[] inputs;
+        private int[] labels;
+        private int count;
+
+        // Covers shards [from, to) out of shards; every leaf holds up to shardCapacity rows
+        ShardTask(int from, int to, int shards, int shardCapacity) {
+            this.shard = from;
+            this.shards = shards;
+            if (to - from == 1) {
+                left = null;
+                right = null;
+                buffers = new BatchBuffers(layers, shardCapacity);
+            } else {
+                int mid = (from + to) >>> 1;
+                left = new ShardTask(from, mid, shards, shardCapacity);
+                right = new ShardTask(mid, to, shards, shardCapacity);
+                buffers = left.buffers;
+            }
+        }
+
+        // The batch is count rows of inputs (row-major) and labels
+        void prepare(double[] inputs, int[] labels, int count) {
+            reinitialize();
+            this.inputs = inputs;
+            this.labels = labels;
+            this.count = count;
+            if (left != null) {
+                left.prepare(inputs, labels, count);
+                right.prepare(inputs, labels, count);
+            }
+        }
+
+        @Override
+        protected void compute() {
+            if (left == null) {
+                int from = shardRows(count, shard, shards);
+                int to = shardRows(count, shard + 1, shards);
+                if (inputs != buffers.inputs) {
+                    System.arraycopy(inputs, from * numFeatures, buffers.inputs, 0, (to - from) * numFeatures);
+                    System.arraycopy(labels, from, buffers.labels, 0, to - from);
+                }
+                TrainingTelemetry telemetry = NeuralNetwork.this.telemetry;
+                if (telemetry != null) {
+                    telemetry.trackWorker();
+                }
+                buffers.loss = 0.0;
+                buffers.correct = 0;
+                buffers.forwardNanos = 0L;
+                buffers.backwardNanos = 0L;
+                if (to > from) {
+                    backwardPropagation(buffers, to - from);
+                }
+                return;
+            }
+            right.fork();
+            left.compute();
+            right.join();
+            for (int l = 0; l < layers.length; l++) {
+                double[] target = buffers.gradients[l];
+                double[] source = right.buffers.gradients[l];
+                for (int i = 0; i < target.length; i++) {
+                    target[i] += source[i];
+                    source[i] = 0.0;
+                }
+            }
+            buffers.loss += right.buffers.loss;
+            buffers.correct += right.buffers.correct;
+            buffers.forwardNanos += right.buffers.forwardNanos;
+            buffers.backwardNanos += right.buffers.backwardNanos;
+        }
+
+        // Rows [shardRows(k), shardRows(k + 1)) of the batch belong to shard k
+        private int shardRows(int rows, int shard, int shards) {
+            return (int) ((long) rows * shard / shards);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,9 @@
+package ANN;
+
+// Weight storage used by a QuantizedNetwork
+public enum Precision {
+    // float weights and activations
+    FLOAT32,
+    // int8 weights with one scale per output neuron, int8 inputs per row, int32 accumulation
+    INT8
+}
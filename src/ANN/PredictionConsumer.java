@@ -0,0 +1,10 @@
+package ANN;
+
+@FunctionalInterface
+public interface PredictionConsumer {
+    /**
+     * Receives the predictions for rows {@code offset .. offset + count - 1}.
+     * {@code predictions} is reused for later chunks, so copy what must be kept.
+     */
+    void accept(int offset, int[] predictions, int count);
+}
@@ -0,0 +1,277 @@
+package ANN;
+
+import Data.DataHandler;
+import Data.Dataset;
+import Data.ValidatedDataset;
+import Loss.LossFunction;
+import utils.WorkerPools;
+
+import java.io.Serial;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Immutable inference view of a {@link NeuralNetwork}, created by
+ * {@link NeuralNetwork#freeze()}. All per-call state lives in an
+ * {@link InferenceContext}, so one predictor can serve any number of threads.
+ * Once a context exists the predict path does not allocate.
+ */
+public final class Predictor {
+    private static final int CHUNK_SIZE = 64;
+    private final Layer[] layers;
+    private final int numFeatures;
+    private final int numClasses;
+    private final ThreadLocal<InferenceContext> contexts = ThreadLocal.withInitial(this::newContext);
+
+    Predictor(Layer[] layers) {
+        this.layers = layers;
+        numFeatures = layers[0].numNodesIn;
+        numClasses = layers[layers.length - 1].numNodesOut;
+    }
+
+    public InferenceContext newContext() {
+        return new InferenceContext(layers);
+    }
+
+    /**
+     * Runs a forward pass and returns the output activations. The returned array
+     * belongs to {@code context} and is overwritten by its next use.
+     */
+    public double[] predict(double[] inputs, InferenceContext context) {
+        DataHandler.validateInputRow(inputs);
+        return forwardRow(inputs, context);
+    }
+
+    /**
+     * {@link #predict} without the NaN/Infinity scan of the row, for hot paths
+     * whose rows are known to be finite, e.g. copied from a
+     * {@link ValidatedDataset}. Only the feature count is checked, and the
+     * values too in strict validation mode.
+     */
+    public double[] predictUnchecked(double[] inputs, InferenceContext context) {
+        DataHandler.checkInputRow(inputs);
+        return forwardRow(inputs, context);
+    }
+
+    private double[] forwardRow(double[] inputs, InferenceContext context) {
+        if (inputs.length != numFeatures) {
+            throw new IllegalArgumentException("Number of features doesn't match the ANN");
+        }
+        for (int l = 0; l < layers.length; l++) {
+            layers[l].calculateOutputs(inputs, 1, context.weightedInputs[l], context.activations[l]);
+            inputs = context.activations[l];
+        }
+        return inputs;
+    }
+
+    // Scratch for classifyBatch calls of up to capacity rows
+    public InferenceContext newContext(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Context capacity can't be less than 1");
+        }
+        return new InferenceContext(layers, capacity);
+    }
+
+    /**
+     * Classifies {@code rows} rows stored row-major in {@code inputs} with one
+     * batched pass through the layers and writes the classes to
+     * {@code predictions}. The rows are only validated in strict validation mode;
+     * {@code context} needs room for them. Predictions equal those of row-by-row
+     * {@link #classify} calls.
+     */
+    public void classifyBatch(double[] inputs, int rows, InferenceContext context, int[] predictions) {
+        if (rows > context.capacity) {
+            throw new IllegalArgumentException("Batch of " + rows + " rows doesn't fit the context");
+        }
+        if (DataHandler.strictValidation()) {
+            for (int i = 0; i < rows * numFeatures; i++) {
+                if (!Double.isFinite(inputs[i])) {
+                    throw new IllegalArgumentException("Invalid value at row " + i / numFeatures + ", column "
+                            + i % numFeatures + ": " + inputs[i]);
+                }
+            }
+        }
+        double[] outputs = forward(inputs, rows, context);
+        for (int r = 0; r < rows; r++) {
+            predictions[r] = NeuralNetwork.maxValueIndex(outputs, r * numClasses, numClasses);
+        }
+    }
+
+    private double[] forward(double[] inputs, int rows, InferenceContext context) {
+        for (int l = 0; l < layers.length; l++) {
+            layers[l].calculateOutputs(inputs, rows, context.weightedInputs[l], context.activations[l]);
+            inputs = context.activations[l];
+        }
+        return inputs;
+    }
+
+    // Classifier for one row edited a few features at a time, starting from all zeros
+    public IncrementalClassifier incremental() {
+        return new IncrementalClassifier(layers);
+    }
+
+    public int classify(double[] inputs, InferenceContext context) {
+        double[] outputs = predict(inputs, context);
+        return NeuralNetwork.maxValueIndex(outputs, 0, numClasses);
+    }
+
+    // classify without the NaN/Infinity scan; see predictUnchecked
+    public int classifyUnchecked(double[] inputs, InferenceContext context) {
+        double[] outputs = predictUnchecked(inputs, context);
+        return NeuralNetwork.maxValueIndex(outputs, 0, numClasses);
+    }
+
+    // Uses a context cached per calling thread
+    public int classify(double[] inputs) {
+        return classify(inputs, contexts.get());
+    }
+
+    public int[] classifyAll(double[][] inputs, int threads) {
+        int[] predictions = new int[inputs.length];
+        classifyAll(inputs, threads,
+                (offset, chunk, count) -> System.arraycopy(chunk, 0, predictions, offset, count));
+        return predictions;
+    }
+
+    /**
+     * Classifies the rows in chunks of {@value #CHUNK_SIZE}, batching every chunk
+     * through the layers and spreading chunks over up to {@code threads} threads.
+     * Chunks reach {@code consumer} in row order on the calling thread, and the
+     * predictions equal those of row-by-row {@link #classify(double[])} calls.
+     */
+    public void classifyAll(double[][] inputs, int threads, PredictionConsumer consumer) {
+        DataHandler.validateInputs(inputs);
+        if (inputs[0].length != numFeatures) {
+            throw new IllegalArgumentException("Number of features doesn't match the ANN");
+        }
+        classifyRows(Dataset.wrap(inputs), threads, consumer);
+    }
+
+    public int[] classifyAll(Dataset inputs, int threads) {
+        int[] predictions = new int[inputs.rows()];
+        classifyAll(inputs, threads,
+                (offset, chunk, count) -> System.arraycopy(chunk, 0, predictions, offset, count));
+        return predictions;
+    }
+
+    // Same as classifyAll(double[][], int, PredictionConsumer) over the rows of a dataset
+    public void classifyAll(Dataset inputs, int threads, PredictionConsumer consumer) {
+        DataHandler.validateInputs(inputs);
+        if (inputs.numFeatures() != numFeatures) {
+            throw new IllegalArgumentException("Number of features doesn't match the ANN");
+        }
+        classifyRows(inputs, threads, consumer);
+    }
+
+    public int[] classifyAll(ValidatedDataset inputs, int threads) {
+        int[] predictions = new int[inputs.rows()];
+        classifyAll(inputs, threads,
+                (offset, chunk, count) -> System.arraycopy(chunk, 0, predictions, offset, count));
+        return predictions;
+    }
+
+    // Same as classifyAll(Dataset, int, PredictionConsumer) without scanning the rows again
+    public void classifyAll(ValidatedDataset inputs, int threads, PredictionConsumer consumer) {
+        inputs.requireCompatible(numFeatures, numClasses, false);
+        classifyRows(inputs.dataset(), threads, consumer);
+    }
+
+    // classifyAll without input validation, for callers that already validated
+    void classifyRows(Dataset inputs, int threads, PredictionConsumer consumer) {
+        evaluateRows(inputs, threads, null, consumer);
+    }
+
+    /*
+     * classifyRows that also returns the loss summed over the labelled rows, or
+     * 0 if lossFunction is null. Every context sums its own chunks and the
+     * contexts are added in order, so the total doesn't depend on scheduling.
+     */
+    double evaluateRows(Dataset inputs, int threads, LossFunction lossFunction, PredictionConsumer consumer) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Number of threads can't be less than 1");
+        }
+        int rows = inputs.rows();
+        int chunks = (rows + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        int workers = Math.min(threads, chunks);
+        InferenceContext[] chunkContexts = new InferenceContext[workers];
+        for (int i = 0; i < workers; i++) {
+            chunkContexts[i] = new InferenceContext(layers, Math.min(CHUNK_SIZE, rows));
+        }
+        ForkJoinPool pool = workers > 1 ? WorkerPools.get(threads) : null;
+
+        for (int first = 0; first < chunks; first += workers) {
+            int wave = Math.min(workers, chunks - first);
+            if (pool != null) {
+                pool.invoke(new ChunkTask(inputs, lossFunction, chunkContexts, first, 0, wave));
+            } else {
+                classifyChunk(inputs, lossFunction, first, chunkContexts[0]);
+            }
+            for (int c = 0; c < wave; c++) {
+                int offset = (first + c) * CHUNK_SIZE;
+                consumer.accept(offset, chunkContexts[c].predictions, Math.min(CHUNK_SIZE, rows - offset));
+            }
+        }
+        double loss = 0.0;
+        for (InferenceContext context : chunkContexts) {
+            loss += context.loss;
+        }
+        return loss;
+    }
+
+    private void classifyChunk(Dataset inputs, LossFunction lossFunction, int chunk, InferenceContext context) {
+        int offset = chunk * CHUNK_SIZE;
+        int rows = Math.min(CHUNK_SIZE, inputs.rows() - offset);
+        for (int r = 0; r < rows; r++) {
+            inputs.copyRow(offset + r, context.inputs, r * numFeatures);
+        }
+        double[] outputs = forward(context.inputs, rows, context);
+        for (int r = 0; r < rows; r++) {
+            context.predictions[r] = NeuralNetwork.maxValueIndex(outputs, r * numClasses, numClasses);
+            if (lossFunction != null) {
+                int label = inputs.label(offset + r);
+                context.loss += lossFunction.calculateLoss(outputs, r * numClasses, numClasses, label);
+            }
+        }
+    }
+
+    // Classifies chunks first + [from, to) of one wave, chunk first + c using context c
+    private final class ChunkTask extends RecursiveAction {
+        @Serial
+        private static final long serialVersionUID = 1L;
+        private final Dataset inputs;
+        private final LossFunction lossFunction;
+        private final InferenceContext[] chunkContexts;
+        private final int first;
+        private final int from;
+        private final int to;
+
+        ChunkTask(Dataset inputs, LossFunction lossFunction, InferenceContext[] chunkContexts, int first, int from,
+                  int to) {
+            this.inputs = inputs;
+            this.lossFunction = lossFunction;
+            this.chunkContexts = chunkContexts;
+            this.first = first;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                classifyChunk(inputs, lossFunction, first + from, chunkContexts[from]);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new ChunkTask(inputs, lossFunction, chunkContexts, first, from, mid),
+                    new ChunkTask(inputs, lossFunction, chunkContexts, first, mid, to));
+        }
+    }
+
+    public int numFeatures() {
+        return numFeatures;
+    }
+
+    public int numClasses() {
+        return numClasses;
+    }
+}
@@ -0,0 +1,21 @@
+package ANN;
+
+// Accuracy and weight memory of a quantized network next to the double network it came from
+public record QuantizationReport(Precision precision, double baselineAccuracy, double quantizedAccuracy,
+                                 long baselineBytes, long quantizedBytes) {
+
+    public double accuracyDelta() {
+        return quantizedAccuracy - baselineAccuracy;
+    }
+
+    public double compressionRatio() {
+        return (double) baselineBytes / quantizedBytes;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s | Accuracy: %.4f -> %.4f (%+.4f) | Weights: %d -> %d bytes (%.1fx smaller)",
+                precision, baselineAccuracy, quantizedAccuracy, accuracyDelta(),
+                baselineBytes, quantizedBytes, compressionRatio());
+    }
+}
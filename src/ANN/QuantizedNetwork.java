@@ -0,0 +1,365 @@
+package ANN;
+
+import Activation.ActivationFunction;
+import Data.DataHandler;
+import Data.Dataset;
+import Data.ValidatedDataset;
+import Kernel.KernelSelector;
+import Kernel.Kernels;
+import utils.WorkerPools;
+
+import java.io.Serial;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Inference-only copy of a {@link NeuralNetwork} with reduced-precision weights,
+ * created by {@link NeuralNetwork#quantize(Precision)}.
+ * <p>
+ * {@link Precision#FLOAT32} halves the weight memory and computes in float.
+ * {@link Precision#INT8} stores every output neuron's weights as int8 with their
+ * own scale ({@code max|w| / 127}) next to a float bias. Each layer input row is
+ * quantized the same way on the fly, and the dot products accumulate in int32
+ * before being rescaled. The layer loops run on the active {@link Kernels}.
+ * Thread-safe; scratch is kept per calling thread. Datasets are classified in
+ * chunks of {@value #CHUNK_ROWS} rows spread over up to {@code threads}
+ * threads, all processors by default.
+ */
+public final class QuantizedNetwork {
+    private static final int BLOCK_ROWS = 4;
+    private static final int CHUNK_ROWS = 64;
+    private static final Kernels KERNELS = KernelSelector.active();
+    private final Precision precision;
+    private final int[] layerSizes;
+    private final ActivationFunction[] activationFunctions;
+    // FLOAT32: Layer layout, numNodesOut rows of numNodesIn weights followed by the bias
+    private final float[][] floatWeights;
+    // INT8: numNodesOut rows of numNodesIn weights, plus per-row scale and bias
+    private final byte[][] int8Weights;
+    private final float[][] rowScales;
+    private final float[][] biases;
+    private final ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(Scratch::new);
+
+    QuantizedNetwork(Layer[] layers, Precision precision) {
+        this.precision = precision;
+        int numLayers = layers.length;
+        layerSizes = new int[numLayers + 1];
+        layerSizes[0] = layers[0].numNodesIn;
+        activationFunctions = new ActivationFunction[numLayers];
+        floatWeights = new float[numLayers][];
+        int8Weights = new byte[numLayers][];
+        rowScales = new float[numLayers][];
+        biases = new float[numLayers][];
+
+        for (int l = 0; l < numLayers; l++) {
+            Layer layer = layers[l];
+            layerSizes[l + 1] = layer.numNodesOut;
+            activationFunctions[l] = layer.getActivationFunction();
+            double[] weights = layer.getWeights();
+            if (precision == Precision.FLOAT32) {
+                floatWeights[l] = new float[weights.length];
+                for (int i = 0; i < weights.length; i++) {
+                    floatWeights[l][i] = (float) weights[i];
+                }
+            } else {
+                quantizeRows(l, layer.numNodesIn, layer.numNodesOut, weights);
+            }
+        }
+    }
+
+    private void quantizeRows(int l, int numNodesIn, int numNodesOut, double[] weights) {
+        int8Weights[l] = new byte[numNodesIn * numNodesOut];
+        rowScales[l] = new float[numNodesOut];
+        biases[l] = new float[numNodesOut];
+        for (int nodeOut = 0; nodeOut < numNodesOut; nodeOut++) {
+            int base = nodeOut * (numNodesIn + 1);
+            double maxAbs = 0.0;
+            for (int nodeIn = 0; nodeIn < numNodesIn; nodeIn++) {
+                maxAbs = Math.max(maxAbs, Math.abs(weights[base + nodeIn]));
+            }
+            double scale = maxAbs > 0.0 ? maxAbs / 127.0 : 1.0;
+            for (int nodeIn = 0; nodeIn < numNodesIn; nodeIn++) {
+                int8Weights[l][nodeOut * numNodesIn + nodeIn] = (byte) Math.round(weights[base + nodeIn] / scale);
+            }
+            rowScales[l][nodeOut] = (float) scale;
+            biases[l][nodeOut] = (float) weights[base + numNodesIn];
+        }
+    }
+
+    public int classify(double[] inputs) {
+        DataHandler.validateInputRow(inputs);
+        if (inputs.length != numFeatures()) {
+            throw new IllegalArgumentException("Number of features doesn't match the ANN");
+        }
+        Scratch rowScratch = scratch.get();
+        float[] row = rowScratch.input;
+        for (int i = 0; i < inputs.length; i++) {
+            row[i] = (float) inputs[i];
+        }
+        forwardBlock(1, rowScratch);
+        return rowScratch.predictions[0];
+    }
+
+    public int[] classifyAll(double[][] inputs) {
+        return classifyAll(inputs, Runtime.getRuntime().availableProcessors());
+    }
+
+    public int[] classifyAll(double[][] inputs, int threads) {
+        DataHandler.validateInputs(inputs);
+        if (inputs[0].length != numFeatures()) {
+            throw new IllegalArgumentException("Number of features doesn't match the ANN");
+        }
+        return classifyRows(Dataset.wrap(inputs), threads);
+    }
+
+    public int[] classifyAll(Dataset inputs) {
+        return classifyAll(inputs, Runtime.getRuntime().availableProcessors());
+    }
+
+    public int[] classifyAll(Dataset inputs, int threads) {
+        DataHandler.validateInputs(inputs);
+        if (inputs.numFeatures() != numFeatures()) {
+            throw new IllegalArgumentException("Number of features doesn't match the ANN");
+        }
+        return classifyRows(inputs, threads);
+    }
+
+    public int[] classifyAll(ValidatedDataset inputs) {
+        return classifyAll(inputs, Runtime.getRuntime().availableProcessors());
+    }
+
+    public int[] classifyAll(ValidatedDataset inputs, int threads) {
+        inputs.requireCompatible(numFeatures(), numClasses(), false);
+        return classifyRows(inputs.dataset(), threads);
+    }
+
+    public double evaluateAccuracy(double[][] inputs, int[] labelIndices) {
+        DataHandler.validateLabels(labelIndices, numClasses());
+        if (inputs.length != labelIndices.length) {
+            throw new IllegalArgumentException("Number of Inputs doesn't match the outputs");
+        }
+        return accuracy(classifyAll(inputs), labelIndices);
+    }
+
+    public double evaluateAccuracy(Dataset inputs) {
+        int[] labelIndices = inputs.labels();
+        DataHandler.validateLabels(labelIndices, numClasses());
+        return accuracy(classifyAll(inputs), labelIndices);
+    }
+
+    public double evaluateAccuracy(ValidatedDataset inputs) {
+        inputs.requireCompatible(numFeatures(), numClasses(), true);
+        return accuracy(classifyRows(inputs.dataset(), Runtime.getRuntime().availableProcessors()),
+                inputs.dataset().labels());
+    }
+
+    // classifyAll without input validation; every chunk writes its own range of the predictions
+    private int[] classifyRows(Dataset inputs, int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Number of threads can't be less than 1");
+        }
+        int[] predictions = new int[inputs.rows()];
+        int chunks = (predictions.length + CHUNK_ROWS - 1) / CHUNK_ROWS;
+        ChunkTask task = new ChunkTask(inputs, predictions, 0, chunks);
+        if (threads == 1 || chunks <= 1) {
+            task.compute();
+        } else {
+            WorkerPools.get(threads).invoke(task);
+        }
+        return predictions;
+    }
+
+    private void classifyChunk(Dataset inputs, int chunk, int[] predictions) {
+        Scratch blockScratch = scratch.get();
+        int end = Math.min(predictions.length, (chunk + 1) * CHUNK_ROWS);
+        for (int i = chunk * CHUNK_ROWS; i < end; i += BLOCK_ROWS) {
+            int rows = Math.min(BLOCK_ROWS, end - i);
+            classifyBlock(inputs, i, rows, blockScratch);
+            System.arraycopy(blockScratch.predictions, 0, predictions, i, rows);
+        }
+    }
+
+    // Classifies chunks [from, to), each with the scratch of the thread that runs it
+    private final class ChunkTask extends RecursiveAction {
+        @Serial
+        private static final long serialVersionUID = 1L;
+        private final Dataset inputs;
+        private final int[] predictions;
+        private final int from;
+        private final int to;
+
+        ChunkTask(Dataset inputs, int[] predictions, int from, int to) {
+            this.inputs = inputs;
+            this.predictions = predictions;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= 1) {
+                if (to > from) {
+                    classifyChunk(inputs, from, predictions);
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            ChunkTask left = new ChunkTask(inputs, predictions, from, mid);
+            ChunkTask right = new ChunkTask(inputs, predictions, mid, to);
+            if (inForkJoinPool()) {
+                invokeAll(left, right);
+            } else {
+                left.compute();
+                right.compute();
+            }
+        }
+    }
+
+    private static double accuracy(int[] predictions, int[] labelIndices) {
+        int correct = 0;
+        for (int i = 0; i < predictions.length; i++) {
+            if (predictions[i] == labelIndices[i]) {
+                correct++;
+            }
+        }
+        return (double) correct / predictions.length;
+    }
+
+    // Compares this network with the double network it was quantized from on held-out data
+    public QuantizationReport report(NeuralNetwork baseline, Dataset heldOut) {
+        long baselineBytes = 0;
+        for (int l = 0; l + 1 < layerSizes.length; l++) {
+            baselineBytes += (long) (layerSizes[l] + 1) * layerSizes[l + 1] * Double.BYTES;
+        }
+        return new QuantizationReport(precision,
+                baseline.evaluateAccuracy(heldOut),
+                evaluateAccuracy(heldOut),
+                baselineBytes, weightBytes());
+    }
+
+    // Classifies rows offset .. offset + rows - 1 (rows <= BLOCK_ROWS) into blockScratch.predictions
+    private void classifyBlock(Dataset inputs, int offset, int rows, Scratch blockScratch) {
+        int numFeatures = numFeatures();
+        for (int r = 0; r < rows; r++) {
+            inputs.copyRow(offset + r, blockScratch.input, r * numFeatures);
+        }
+        forwardBlock(rows, blockScratch);
+    }
+
+    // Runs the rows already in blockScratch.input through the layers into blockScratch.predictions
+    private void forwardBlock(int rows, Scratch blockScratch) {
+        float[] activations = blockScratch.input;
+        for (int l = 0; l + 1 < layerSizes.length; l++) {
+            float[] outputs = blockScratch.activations[l];
+            if (precision == Precision.FLOAT32) {
+                forwardFloat32(l, activations, rows, outputs);
+            } else {
+                forwardInt8(l, activations, rows, outputs, blockScratch);
+            }
+            activations = outputs;
+        }
+
+        int numClasses = numClasses();
+        for (int r = 0; r < rows; r++) {
+            int base = r * numClasses;
+            int index = 0;
+            for (int i = 1; i < numClasses; i++) {
+                if (activations[base + i] > activations[base + index]) {
+                    index = i;
+                }
+            }
+            blockScratch.predictions[r] = index;
+        }
+    }
+
+    private void forwardFloat32(int l, float[] inputs, int rows, float[] outputs) {
+        int numNodesIn = layerSizes[l];
+        int numNodesOut = layerSizes[l + 1];
+        ActivationFunction activationFunction = activationFunctions[l];
+        KERNELS.weightedInputs(inputs, rows, numNodesIn, floatWeights[l], numNodesOut, outputs);
+        activationFunction.activate(outputs, rows, numNodesOut);
+    }
+
+    private void forwardInt8(int l, float[] inputs, int rows, float[] outputs, Scratch blockScratch) {
+        int numNodesIn = layerSizes[l];
+        int numNodesOut = layerSizes[l + 1];
+        byte[] quantizedInput = blockScratch.quantizedInput;
+        float[] inputScales = blockScratch.inputScales;
+        for (int r = 0; r < rows; r++) {
+            int in = r * numNodesIn;
+            float maxAbs = 0.0f;
+            for (int nodeIn = 0; nodeIn < numNodesIn; nodeIn++) {
+                maxAbs = Math.max(maxAbs, Math.abs(inputs[in + nodeIn]));
+            }
+            float inputScale = maxAbs > 0.0f ? maxAbs / 127.0f : 1.0f;
+            float inverseScale = 1.0f / inputScale;
+            for (int nodeIn = 0; nodeIn < numNodesIn; nodeIn++) {
+                quantizedInput[in + nodeIn] = (byte) Math.round(inputs[in + nodeIn] * inverseScale);
+            }
+            inputScales[r] = inputScale;
+        }
+
+        int[] accumulators = blockScratch.accumulators;
+        KERNELS.dotProducts(quantizedInput, rows, numNodesIn, int8Weights[l], numNodesOut, accumulators);
+        float[] scales = rowScales[l];
+        float[] bias = biases[l];
+        ActivationFunction activationFunction = activationFunctions[l];
+        for (int r = 0; r < rows; r++) {
+            for (int nodeOut = 0; nodeOut < numNodesOut; nodeOut++) {
+                int o = r * numNodesOut + nodeOut;
+                outputs[o] = accumulators[o] * inputScales[r] * scales[nodeOut] + bias[nodeOut];
+            }
+        }
+        activationFunction.activate(outputs, rows, numNodesOut);
+    }
+
+    // Bytes held by the weights, scales and biases
+    public long weightBytes() {
+        long bytes = 0;
+        for (int l = 0; l + 1 < layerSizes.length; l++) {
+            if (precision == Precision.FLOAT32) {
+                bytes += (long) floatWeights[l].length * Float.BYTES;
+            } else {
+                bytes += int8Weights[l].length + (long) (rowScales[l].length + biases[l].length) * Float.BYTES;
+            }
+        }
+        return bytes;
+    }
+
+    public Precision precision() {
+        return precision;
+    }
+
+    public int numFeatures() {
+        return layerSizes[0];
+    }
+
+    public int numClasses() {
+        return layerSizes[layerSizes.length - 1];
+    }
+
+    // Per-thread buffers for a block of up to BLOCK_ROWS rows
+    private final class Scratch {
+        final float[] input;
+        final byte[] quantizedInput;
+        final float[] inputScales;
+        final int[] accumulators;
+        final float[][] activations;
+        final int[] predictions;
+
+        Scratch() {
+            int maxWidth = 0;
+            int maxOut = 0;
+            activations = new float[layerSizes.length - 1][];
+            for (int l = 0; l + 1 < layerSizes.length; l++) {
+                activations[l] = new float[BLOCK_ROWS * layerSizes[l + 1]];
+                maxWidth = Math.max(maxWidth, layerSizes[l]);
+                maxOut = Math.max(maxOut, layerSizes[l + 1]);
+            }
+            input = new float[BLOCK_ROWS * layerSizes[0]];
+            quantizedInput = new byte[BLOCK_ROWS * maxWidth];
+            inputScales = new float[BLOCK_ROWS];
+            accumulators = new int[BLOCK_ROWS * maxOut];
+            predictions = new int[BLOCK_ROWS];
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package ANN;
+
+// Receives the metrics of every epoch from NeuralNetwork.train, on the training thread
+@FunctionalInterface
+public interface TrainingListener {
+    void onEpochEnd(EpochMetrics metrics);
+
+    // The default: one line per epoch on System.out
+    static TrainingListener console() {
+        return metrics -> {
+            if (metrics.hasValidation()) {
+                System.out.printf("Epoch %d | Loss: %.6f | Train Acc: %.4f | Val Loss: %.6f | Val Acc: %.4f\n",
+                        metrics.epoch(), metrics.loss(), metrics.accuracy(),
+                        metrics.validationLoss(), metrics.validationAccuracy());
+            } else {
+                System.out.printf("Epoch %d | Loss: %.6f | Train Acc: %.4f\n",
+                        metrics.epoch(), metrics.loss(), metrics.accuracy());
+            }
+        };
+    }
+}
@@ -0,0 +1,21 @@
+package ANN;
+
+// Validation result watched by EarlyStopping and AdaptiveBatchSize
+public enum ValidationMetric {
+    // higher is better
+    ACCURACY,
+    // lower is better
+    LOSS;
+
+    double value(EpochMetrics metrics) {
+        return this == ACCURACY ? metrics.validationAccuracy() : metrics.validationLoss();
+    }
+
+    // Whether value beats best by more than minDelta; anything beats NaN
+    boolean improves(double value, double best, double minDelta) {
+        if (Double.isNaN(best)) {
+            return true;
+        }
+        return this == ACCURACY ? value > best + minDelta : value < best - minDelta;
+    }
+}
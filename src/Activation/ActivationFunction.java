@@ -1,7 +1,27 @@
 package Activation;
 
+/**
+ * Activation of a layer's weighted inputs, applied a block of rows at a time.
+ * Functions of single values implement {@link ElementwiseActivation}; ones
+ * that span a whole row, like {@link Softmax}, implement the row methods
+ * directly.
+ */
 public interface ActivationFunction {
-    double activate(double input);
 
-    double derivative(double input);
+    /**
+     * Activates {@code rows} rows of {@code width} weighted inputs, row-major,
+     * into {@code outputs}.
+     */
+    void activate(double[] inputs, double[] outputs, int rows, int width);
+
+    // Same as above on float rows, in place
+    void activate(float[] values, int rows, int width);
+
+    /**
+     * Turns deltas w.r.t. the outputs of the same rows into deltas w.r.t. their
+     * weighted inputs, in place. {@code outputs} holds the activations the
+     * forward pass computed from {@code inputs}, so implementations whose
+     * derivative follows from the activation skip re-evaluating it.
+     */
+    void backpropagate(double[] inputs, double[] outputs, double[] deltas, int rows, int width);
 }
@@ -0,0 +1,37 @@
+package Activation;
+
+/**
+ * Activation applied to every value on its own, defined by its scalar function
+ * and derivative. The row methods default to loops over those; the built-in
+ * activations override them with their own loops, which keeps each loop
+ * monomorphic instead of calling through the interface for every value.
+ */
+public interface ElementwiseActivation extends ActivationFunction {
+    double activate(double input);
+
+    double derivative(double input);
+
+    @Override
+    default void activate(double[] inputs, double[] outputs, int rows, int width) {
+        int size = rows * width;
+        for (int i = 0; i < size; i++) {
+            outputs[i] = activate(inputs[i]);
+        }
+    }
+
+    @Override
+    default void activate(float[] values, int rows, int width) {
+        int size = rows * width;
+        for (int i = 0; i < size; i++) {
+            values[i] = (float) activate(values[i]);
+        }
+    }
+
+    @Override
+    default void backpropagate(double[] inputs, double[] outputs, double[] deltas, int rows, int width) {
+        int size = rows * width;
+        for (int i = 0; i < size; i++) {
+            deltas[i] *= derivative(inputs[i]);
+        }
+    }
+}
@@ -3,7 +3,7 @@ package Activation;
 import java.io.Serial;
 import java.io.Serializable;
 
-public class Linear implements ActivationFunction, Serializable {
+public class Linear implements ElementwiseActivation, Serializable {
     @Serial
     private static final long serialVersionUID = 1L;
 
@@ -16,4 +16,20 @@ public class Linear implements ActivationFunction, Serializable {
     public double derivative(double input) {
         return 1.0;
     }
+
+    @Override
+    public void activate(double[] inputs, double[] outputs, int rows, int width) {
+        if (inputs != outputs) {
+            System.arraycopy(inputs, 0, outputs, 0, rows * width);
+        }
+    }
+
+    @Override
+    public void activate(float[] values, int rows, int width) {
+    }
+
+    // The derivative is 1, so the deltas stay as they are
+    @Override
+    public void backpropagate(double[] inputs, double[] outputs, double[] deltas, int rows, int width) {
+    }
 }
@@ -3,7 +3,7 @@ package Activation;
 import java.io.Serial;
 import java.io.Serializable;
 
-public class ReLU implements ActivationFunction, Serializable {
+public class ReLU implements ElementwiseActivation, Serializable {
     @Serial
     private static final long serialVersionUID = 1L;
 
@@ -16,4 +16,30 @@ public class ReLU implements ActivationFunction, Serializable {
     public double derivative(double input) {
         return input > 0.0 ? 1.0 : 0.0;
     }
-}
\ No newline at end of file
+
+    @Override
+    public void activate(double[] inputs, double[] outputs, int rows, int width) {
+        int size = rows * width;
+        for (int i = 0; i < size; i++) {
+            outputs[i] = Math.max(0.0, inputs[i]);
+        }
+    }
+
+    @Override
+    public void activate(float[] values, int rows, int width) {
+        int size = rows * width;
+        for (int i = 0; i < size; i++) {
+            values[i] = Math.max(0.0f, values[i]);
+        }
+    }
+
+    @Override
+    public void backpropagate(double[] inputs, double[] outputs, double[] deltas, int rows, int width) {
+        int size = rows * width;
+        for (int i = 0; i < size; i++) {
+            if (!(inputs[i] > 0.0)) {
+                deltas[i] = 0.0;
+            }
+        }
+    }
+}
@@ -3,13 +3,28 @@ package Activation;
 import java.io.Serial;
 import java.io.Serializable;
 
-public class Sigmoid implements ActivationFunction, Serializable {
+public class Sigmoid implements ElementwiseActivation, Serializable {
     @Serial
     private static final long serialVersionUID = 1L;
 
+    private final boolean approximate;
+
+    public Sigmoid() {
+        this(false);
+    }
+
+    // approximate: interpolate a lookup table instead of calling exp, within 3e-6 of the exact value
+    public Sigmoid(boolean approximate) {
+        this.approximate = approximate;
+    }
+
+    public boolean isApproximate() {
+        return approximate;
+    }
+
     @Override
     public double activate(double input) {
-        return 1.0 / (1.0 + Math.exp(-input));
+        return approximate ? SigmoidTable.sigmoid(input) : 1.0 / (1.0 + Math.exp(-input));
     }
 
     @Override
@@ -17,4 +32,36 @@ public class Sigmoid implements ActivationFunction, Serializable {
         double a = activate(input);
         return a * (1.0 - a);
     }
+
+    @Override
+    public void activate(double[] inputs, double[] outputs, int rows, int width) {
+        int size = rows * width;
+        if (approximate) {
+            for (int i = 0; i < size; i++) {
+                outputs[i] = SigmoidTable.sigmoid(inputs[i]);
+            }
+        } else {
+            for (int i = 0; i < size; i++) {
+                outputs[i] = 1.0 / (1.0 + Math.exp(-inputs[i]));
+            }
+        }
+    }
+
+    @Override
+    public void activate(float[] values, int rows, int width) {
+        int size = rows * width;
+        for (int i = 0; i < size; i++) {
+            values[i] = (float) activate(values[i]);
+        }
+    }
+
+    // sigmoid' = a * (1 - a), from the activations of the forward pass
+    @Override
+    public void backpropagate(double[] inputs, double[] outputs, double[] deltas, int rows, int width) {
+        int size = rows * width;
+        for (int i = 0; i < size; i++) {
+            double a = outputs[i];
+            deltas[i] *= a * (1.0 - a);
+        }
+    }
 }
@@ -0,0 +1,80 @@
+package Activation;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+// Normalized exponentials over each row, computed with the row maximum subtracted so exp never overflows
+public class Softmax implements ActivationFunction, Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    public void activate(double[] inputs, double[] outputs, int rows, int width) {
+        for (int r = 0; r < rows; r++) {
+            int base = r * width;
+            double max = max(inputs, base, width);
+            double sum = 0.0;
+            for (int i = base; i < base + width; i++) {
+                double e = Math.exp(inputs[i] - max);
+                outputs[i] = e;
+                sum += e;
+            }
+            double inverse = 1.0 / sum;
+            for (int i = base; i < base + width; i++) {
+                outputs[i] *= inverse;
+            }
+        }
+    }
+
+    @Override
+    public void activate(float[] values, int rows, int width) {
+        for (int r = 0; r < rows; r++) {
+            int base = r * width;
+            double max = Double.NEGATIVE_INFINITY;
+            for (int i = base; i < base + width; i++) {
+                max = Math.max(max, values[i]);
+            }
+            double sum = 0.0;
+            for (int i = base; i < base + width; i++) {
+                sum += Math.exp(values[i] - max);
+            }
+            double inverse = 1.0 / sum;
+            for (int i = base; i < base + width; i++) {
+                values[i] = (float) (Math.exp(values[i] - max) * inverse);
+            }
+        }
+    }
+
+    // Full Jacobian per row: delta_i = p_i * (delta_i - sum_j delta_j * p_j), with p the forward outputs
+    @Override
+    public void backpropagate(double[] inputs, double[] outputs, double[] deltas, int rows, int width) {
+        for (int r = 0; r < rows; r++) {
+            int base = r * width;
+            double dot = 0.0;
+            for (int i = base; i < base + width; i++) {
+                dot += deltas[i] * outputs[i];
+            }
+            for (int i = base; i < base + width; i++) {
+                deltas[i] = outputs[i] * (deltas[i] - dot);
+            }
+        }
+    }
+
+    // log(sum_i exp(inputs[i])) of one row, without overflow
+    public static double logSumExp(double[] inputs, int offset, int length) {
+        double max = max(inputs, offset, length);
+        double sum = 0.0;
+        for (int i = offset; i < offset + length; i++) {
+            sum += Math.exp(inputs[i] - max);
+        }
+        return max + Math.log(sum);
+    }
+
+    private static double max(double[] values, int offset, int length) {
+        double max = Double.NEGATIVE_INFINITY;
+        for (int i = offset; i < offset + length; i++) {
+            max = Math.max(max, values[i]);
+        }
+        return max;
+    }
+}
@@ -3,13 +3,28 @@ package Activation;
 import java.io.Serial;
 import java.io.Serializable;
 
-public class Tanh implements ActivationFunction, Serializable {
+public class Tanh implements ElementwiseActivation, Serializable {
     @Serial
     private static final long serialVersionUID = 1L;
 
+    private final boolean approximate;
+
+    public Tanh() {
+        this(false);
+    }
+
+    // approximate: interpolate a lookup table instead of calling tanh, within 6e-6 of the exact value
+    public Tanh(boolean approximate) {
+        this.approximate = approximate;
+    }
+
+    public boolean isApproximate() {
+        return approximate;
+    }
+
     @Override
     public double activate(double input) {
-        return Math.tanh(input);
+        return approximate ? SigmoidTable.tanh(input) : Math.tanh(input);
     }
 
     @Override
@@ -17,4 +32,36 @@ public class Tanh implements ActivationFunction, Serializable {
         double t = activate(input);
         return 1.0 - (t * t);
     }
+
+    @Override
+    public void activate(double[] inputs, double[] outputs, int rows, int width) {
+        int size = rows * width;
+        if (approximate) {
+            for (int i = 0; i < size; i++) {
+                outputs[i] = SigmoidTable.tanh(inputs[i]);
+            }
+        } else {
+            for (int i = 0; i < size; i++) {
+                outputs[i] = Math.tanh(inputs[i]);
+            }
+        }
+    }
+
+    @Override
+    public void activate(float[] values, int rows, int width) {
+        int size = rows * width;
+        for (int i = 0; i < size; i++) {
+            values[i] = (float) activate(values[i]);
+        }
+    }
+
+    // tanh' = 1 - t^2, from the activations of the forward pass
+    @Override
+    public void backpropagate(double[] inputs, double[] outputs, double[] deltas, int rows, int width) {
+        int size = rows * width;
+        for (int i = 0; i < size; i++) {
+            double t = outputs[i];
+            deltas[i] *= 1.0 - t * t;
+        }
+    }
 }
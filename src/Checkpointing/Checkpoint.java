@@ -0,0 +1,24 @@
+package Checkpointing;
+
+import utils.SeededRandom;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * Training state after {@code batch} mini-batches of epoch {@code epoch}
+ * (both 0-based; batch 0 is the start of the epoch): the weights of every
+ * layer, the optimizer state, the training source's order, RNG and position,
+ * the metrics accumulated so far in the epoch, and the state of the early
+ * stopping and adaptive batch size (null when not set). Every array is a copy
+ * taken when the checkpoint was created, so it can be written while training
+ * goes on. {@code NeuralNetwork.resume} continues from it as if training had
+ * never stopped.
+ */
+public record Checkpoint(int epoch, int batch, int batchSize, double[][] weights, Serializable optimizerState,
+                         Serializable sourceState, SeededRandom validationRandom, double epochLoss, int epochCorrect,
+                         int epochSeen, Serializable earlyStoppingState, Serializable batchSizeState)
+        implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+}
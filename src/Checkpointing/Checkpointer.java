@@ -0,0 +1,204 @@
+package Checkpointing;
+
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes training checkpoints to a directory on a background thread, so
+ * training only pays for copying its state. Each checkpoint is serialized to a
+ * temporary file, synced, then atomically renamed to
+ * {@code checkpoint-<epoch>-<batch>.ckpt}, so a crash never leaves a partial
+ * checkpoint under the final name. The directory is synced after the rename
+ * where the platform allows it, so the new name survives a power loss too. Only the last {@code keep} checkpoints are
+ * kept. If checkpoints come faster than they can be written, a queued one is
+ * replaced by the newer one. Use one directory per training run.
+ */
+public final class Checkpointer implements AutoCloseable {
+    private static final String PREFIX = "checkpoint-";
+    private static final String SUFFIX = ".ckpt";
+
+    private final Path directory;
+    private final int everyEpochs;
+    private final int everyBatches;
+    private final int keep;
+    private final ThreadPoolExecutor writer;
+    private Future<?> lastWrite;
+    private volatile IOException failure;
+
+    // A checkpoint after every epoch, keeping the last 3
+    public Checkpointer(Path directory) throws IOException {
+        this(directory, 1, 0, 3);
+    }
+
+    /**
+     * Checkpoints after every {@code everyEpochs}-th epoch and every
+     * {@code everyBatches} mini-batches within an epoch; 0 turns either off.
+     * Mid-epoch checkpoints are only taken for sources that can save their
+     * position (see {@code BatchSource.saveState}).
+     */
+    public Checkpointer(Path directory, int everyEpochs, int everyBatches, int keep) throws IOException {
+        if (everyEpochs < 0 || everyBatches < 0) {
+            throw new IllegalArgumentException("Checkpoint intervals can't be negative");
+        }
+        if (keep < 1) {
+            throw new IllegalArgumentException("At least one checkpoint must be kept");
+        }
+        Files.createDirectories(directory);
+        this.directory = directory;
+        this.everyEpochs = everyEpochs;
+        this.everyBatches = everyBatches;
+        this.keep = keep;
+        writer = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(1), task -> {
+            Thread thread = new Thread(task, "checkpoint-writer");
+            thread.setDaemon(true);
+            return thread;
+        }, (task, executor) -> {
+            if (executor.isShutdown()) {
+                throw new IllegalStateException("Checkpointer is closed");
+            }
+            // replace the queued checkpoint with the newer one
+            if (executor.getQueue().poll() instanceof Future<?> replaced) {
+                replaced.cancel(false);
+            }
+            executor.execute(task);
+        });
+    }
+
+    // Whether a checkpoint is due once the given number of epochs have completed
+    public boolean dueAfterEpoch(int completedEpochs) {
+        return everyEpochs > 0 && completedEpochs % everyEpochs == 0;
+    }
+
+    // Whether a checkpoint is due after the given number of batches of an epoch
+    public boolean dueAfterBatch(int completedBatches) {
+        return everyBatches > 0 && completedBatches % everyBatches == 0;
+    }
+
+    /**
+     * Queues the checkpoint for writing and returns at once. Throws if an
+     * earlier write failed.
+     */
+    public synchronized void save(Checkpoint checkpoint) {
+        rethrowFailure();
+        lastWrite = writer.submit(() -> write(checkpoint));
+    }
+
+    // Waits until every queued checkpoint is on disk; throws if a write failed
+    public void flush() {
+        Future<?> pending;
+        synchronized (this) {
+            pending = lastWrite;
+        }
+        if (pending != null) {
+            try {
+                pending.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for a checkpoint", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Checkpoint writer failed", e.getCause());
+            } catch (CancellationException e) {
+                // replaced by a newer checkpoint, which was queued after it
+                flush();
+            }
+        }
+        rethrowFailure();
+    }
+
+    @Override
+    public void close() {
+        try {
+            flush();
+        } finally {
+            writer.shutdown();
+        }
+    }
+
+    private void write(Checkpoint checkpoint) {
+        Path target = directory.resolve(String.format("%s%06d-%08d%s", PREFIX, checkpoint.epoch(),
+                checkpoint.batch(), SUFFIX));
+        Path temporary = directory.resolve(target.getFileName() + ".tmp");
+        try {
+            try (FileOutputStream file = new FileOutputStream(temporary.toFile());
+                 ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(file))) {
+                out.writeObject(checkpoint);
+                out.flush();
+                file.getChannel().force(true);
+            }
+            Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE);
+            syncDirectory();
+            List<Path> checkpoints = list(directory);
+            for (int i = 0; i < checkpoints.size() - keep; i++) {
+                Files.deleteIfExists(checkpoints.get(i));
+            }
+        } catch (IOException e) {
+            failure = e;
+            try {
+                Files.deleteIfExists(temporary);
+            } catch (IOException ignored) {
+                // the failure above is the one worth reporting
+            }
+        }
+    }
+
+    // Persists the rename; some platforms (e.g. Windows) can't open a directory, which only weakens durability
+    private void syncDirectory() {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException ignored) {
+            // the checkpoint itself is complete; only the rename may be lost on a crash
+        }
+    }
+
+    private void rethrowFailure() {
+        IOException error = failure;
+        if (error != null) {
+            throw new UncheckedIOException("Could not write checkpoint", error);
+        }
+    }
+
+    // Checkpoint files in the directory, oldest first
+    public static List<Path> list(Path directory) throws IOException {
+        List<Path> checkpoints = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return checkpoints;
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+            stream.forEach(checkpoints::add);
+        }
+        // zero-padded names sort by epoch, then batch
+        Collections.sort(checkpoints);
+        return checkpoints;
+    }
+
+    public static Checkpoint load(Path file) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(Files.newInputStream(file))) {
+            return (Checkpoint) in.readObject();
+        }
+    }
+
+    // The newest checkpoint in the directory, or null if there is none
+    public static Checkpoint latest(Path directory) throws IOException, ClassNotFoundException {
+        List<Path> checkpoints = list(directory);
+        return checkpoints.isEmpty() ? null : load(checkpoints.get(checkpoints.size() - 1));
+    }
+}
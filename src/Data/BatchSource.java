@@ -0,0 +1,43 @@
+package Data;
+
+import java.io.Serializable;
+
+/**
+ * Supplies training rows one mini-batch at a time, so the training set does not
+ * have to fit on the heap. Every epoch visits each row once, in a new shuffled
+ * order.
+ */
+public interface BatchSource extends AutoCloseable {
+    int numFeatures();
+
+    // Rows per epoch
+    int size();
+
+    // Starts the next epoch in a new shuffled order, abandoning any rows left from the previous one
+    void startEpoch();
+
+    /**
+     * Copies up to {@code maxRows} rows into {@code inputs} (row-major,
+     * {@link #numFeatures()} values per row) and their labels into
+     * {@code labels}. Fewer rows are returned only at the end of the epoch, and
+     * 0 once it is exhausted.
+     */
+    int next(double[] inputs, int[] labels, int maxRows);
+
+    /**
+     * Copy of the visiting order, shuffle RNG and position in the current
+     * epoch, for a checkpoint, or null if the source can't be resumed. The
+     * copy must not change as the source moves on.
+     */
+    default Serializable saveState() {
+        return null;
+    }
+
+    // Continues from a state taken by saveState() on a source over the same rows
+    default void restoreState(Serializable state) {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " can't be resumed");
+    }
+
+    @Override
+    void close();
+}
@@ -1,50 +1,71 @@
 package Data;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
+import utils.SeededRandom;
 
 public class DataHandler {
+    // -Dann.validation=strict re-checks inputs on every call, even validated ones
+    private static final boolean STRICT_VALIDATION = "strict".equals(System.getProperty("ann.validation"));
+
     private DataHandler() {
     }
 
-    public static void featureScaling(double[][] inputs) {
-        validateInputs(inputs);
+    /**
+     * Whether strict validation is on, a debug mode for tracking down bad
+     * inputs: {@link ValidatedDataset}s are scanned again on every call, and
+     * the unchecked fast paths (unchecked single-row, batched and incremental
+     * inference) check their inputs too.
+     */
+    public static boolean strictValidation() {
+        return STRICT_VALIDATION;
+    }
 
-        int numFeatures = inputs[0].length;
-        double[] min = new double[numFeatures];
-        double[] max = new double[numFeatures];
-
-        // Initialize min/max with first row
-        for (int j = 0; j < numFeatures; j++) {
-            min[j] = inputs[0][j];
-            max[j] = inputs[0][j];
-        }
-
-        // Find min and max for each feature
-        for (int i = 1; i < inputs.length; i++) {
-            for (int j = 0; j < numFeatures; j++) {
-                if (inputs[i][j] < min[j])
-                    min[j] = inputs[i][j];
-                if (inputs[i][j] > max[j])
-                    max[j] = inputs[i][j];
-            }
-        }
+    // Min-max scaling in place; returns the fitted scaler so new rows can be scaled the same way
+    public static FeatureScaler featureScaling(double[][] inputs) {
+        validateShape(inputs);
+        return featureScaling(Dataset.wrap(inputs));
+    }
 
-        // Apply Min-Max scaling
-        for (int i = 0; i < inputs.length; i++) {
-            for (int j = 0; j < numFeatures; j++) {
-                if (max[j] != min[j]) {
-                    inputs[i][j] = (inputs[i][j] - min[j]) / (max[j] - min[j]);
-                } else {
-                    inputs[i][j] = 0.0; // Handle case where all values are the same
-                }
-            }
+    public static FeatureScaler featureScaling(Dataset dataset) {
+        return featureScaling(dataset, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Min-max scaling in place over the dataset's rows: one parallel pass
+     * gathers the statistics and validates the values, a second one scales.
+     * uint8 datasets are already in [0,1] and can't be rescaled in place.
+     */
+    public static FeatureScaler featureScaling(Dataset dataset, int threads) {
+        validateShape(dataset);
+        if (dataset.storageType() == StorageType.UINT8) {
+            throw new IllegalArgumentException("uint8 features can't be rescaled in place; convert the dataset first");
         }
+        FeatureStatistics statistics = FeatureStatistics.of(dataset, threads);
+        statistics.requireFinite();
+        FeatureScaler scaler = FeatureScaler.minMax(statistics);
+        scaler.transform(dataset, threads);
+        return scaler;
     }
 
-    public static void featureScaling(Dataset dataset) {
-        featureScaling(dataset.inputs);
+    public static FeatureScaler preprocess(Dataset dataset) {
+        return preprocess(dataset, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Fused replaceNaNWithMean and featureScaling: one parallel pass gathers the
+     * statistics and rejects infinite values, a second one replaces NaN values
+     * by the feature's mean and applies min-max scaling. Returns the fitted
+     * scaler, to be saved with the model and applied to inputs at inference.
+     */
+    public static FeatureScaler preprocess(Dataset dataset, int threads) {
+        validateShape(dataset);
+        if (dataset.storageType() == StorageType.UINT8) {
+            throw new IllegalArgumentException("uint8 features can't be rescaled in place; convert the dataset first");
+        }
+        FeatureStatistics statistics = FeatureStatistics.of(dataset, threads);
+        statistics.requireNoInfinite();
+        FeatureScaler scaler = FeatureScaler.minMax(statistics);
+        scaler.transform(dataset, threads);
+        return scaler;
     }
 
     public static Dataset[] splitData(double[][] inputs, int[] labels, double trainRatio) {
@@ -52,85 +73,56 @@ public class DataHandler {
             throw new IllegalArgumentException("Invalid data or labels.");
         }
 
-        int totalSize = inputs.length;
-        int trainSize = (int) (totalSize * trainRatio);
-        int testSize = totalSize - trainSize;
-
-        // Create indices
-        List<Integer> indices = new ArrayList<>();
-        for (int i = 0; i < totalSize; i++)
-            indices.add(i);
-
-        Collections.shuffle(indices);
-
-        double[][] trainX = new double[trainSize][inputs[0].length];
-        int[] trainY = new int[trainSize];
-        double[][] testX = new double[testSize][inputs[0].length];
-        int[] testY = new int[testSize];
-
-        for (int i = 0; i < trainSize; i++) {
-            trainX[i] = inputs[indices.get(i)];
-            trainY[i] = labels[indices.get(i)];
-        }
+        // the splits index the original rows instead of copying them
+        return splitData(Dataset.wrap(inputs, labels), trainRatio);
+    }
 
-        for (int i = 0; i < testSize; i++) {
-            testX[i] = inputs[indices.get(trainSize + i)];
-            testY[i] = labels[indices.get(trainSize + i)];
+    public static Dataset[] splitData(double[][] inputs, int[] labels, double trainRatio, long seed) {
+        if (inputs == null || labels == null || inputs.length != labels.length) {
+            throw new IllegalArgumentException("Invalid data or labels.");
         }
 
-        return new Dataset[]{new Dataset(trainX, trainY), new Dataset(testX, testY)};
+        return splitData(Dataset.wrap(inputs, labels), trainRatio, seed);
     }
 
+    // Shuffled train/test views of the dataset; no rows are copied
     public static Dataset[] splitData(Dataset dataset, double trainRatio) {
-        return splitData(dataset.inputs, dataset.labels, trainRatio);
+        return dataset.split(trainRatio, new SeededRandom());
+    }
+
+    // The same seed always puts the same rows in each split
+    public static Dataset[] splitData(Dataset dataset, double trainRatio, long seed) {
+        return dataset.split(trainRatio, new SeededRandom(seed));
     }
 
     public static void replaceNaNWithMean(double[][] inputs) {
         if (inputs == null || inputs.length == 0)
             return;
 
-        int numSamples = inputs.length;
-        int numFeatures = inputs[0].length;
-
-        double[] sum = new double[numFeatures];
-        int[] count = new int[numFeatures];
+        replaceNaNWithMean(Dataset.wrap(inputs));
+    }
 
-        // 1. Compute sums and counts (ignore NaNs)
-        for (double[] input : inputs) {
-            for (int j = 0; j < numFeatures; j++) {
-                double value = input[j];
-                if (!Double.isNaN(value)) {
-                    sum[j] += value;
-                    count[j]++;
-                }
-            }
-        }
+    public static void replaceNaNWithMean(Dataset dataset) {
+        replaceNaNWithMean(dataset, Runtime.getRuntime().availableProcessors());
+    }
 
-        // 2. Compute means
-        double[] mean = new double[numFeatures];
-        for (int j = 0; j < numFeatures; j++) {
-            if (count[j] > 0) {
-                mean[j] = sum[j] / count[j];
-            } else {
-                mean[j] = 0.0; // feature is entirely NaN
-            }
-        }
+    /**
+     * Means ignore NaN and infinite values (0 for a feature without finite
+     * values); rows are only rewritten if there are NaNs. Infinite values are
+     * left as they are; {@link #preprocess} and validation reject them.
+     */
+    public static void replaceNaNWithMean(Dataset dataset, int threads) {
+        if (dataset.rows() == 0 || dataset.storageType() == StorageType.UINT8)
+            return;
 
-        // 3. Replace NaNs with mean
-        for (int i = 0; i < numSamples; i++) {
-            for (int j = 0; j < numFeatures; j++) {
-                if (Double.isNaN(inputs[i][j])) {
-                    inputs[i][j] = mean[j];
-                }
-            }
+        FeatureStatistics statistics = FeatureStatistics.of(dataset, threads);
+        if (statistics.hasNaN()) {
+            FeatureScaler.imputer(statistics).transform(dataset, threads);
         }
     }
 
-    public static void replaceNaNWithMean(Dataset dataset) {
-        replaceNaNWithMean(dataset.inputs);
-    }
-
-    public static void validateInputs(double[][] inputs) {
+    // Checks the row count and lengths, but not the values
+    private static void validateShape(double[][] inputs) {
         if (inputs == null) {
             throw new IllegalArgumentException("Inputs array is null.");
         }
@@ -139,7 +131,7 @@ public class DataHandler {
             throw new IllegalArgumentException("Inputs array is empty.");
         }
 
-        if (inputs[0].length == 0) {
+        if (inputs[0] == null || inputs[0].length == 0) {
             throw new IllegalArgumentException("Rows must have at least one feature.");
         }
 
@@ -158,7 +150,14 @@ public class DataHandler {
                                 ": expected " + numFeatures + ", got " + row.length
                 );
             }
+        }
+    }
+
+    public static void validateInputs(double[][] inputs) {
+        validateShape(inputs);
 
+        for (int i = 0; i < inputs.length; i++) {
+            double[] row = inputs[i];
             for (int j = 0; j < row.length; j++) {
                 double value = row[j];
                 if (Double.isNaN(value) || Double.isInfinite(value)) {
@@ -171,6 +170,55 @@ public class DataHandler {
         }
     }
 
+    private static void validateShape(Dataset dataset) {
+        if (dataset == null) {
+            throw new IllegalArgumentException("Dataset is null.");
+        }
+
+        if (dataset.rows() == 0) {
+            throw new IllegalArgumentException("Inputs array is empty.");
+        }
+
+        if (dataset.numFeatures() == 0) {
+            throw new IllegalArgumentException("Rows must have at least one feature.");
+        }
+    }
+
+    public static void validateInputs(Dataset dataset) {
+        validateShape(dataset);
+
+        // uint8 values are always finite
+        if (dataset.storageType() == StorageType.UINT8) {
+            return;
+        }
+
+        double[] row = new double[dataset.numFeatures()];
+        for (int i = 0; i < dataset.rows(); i++) {
+            dataset.copyRow(i, row, 0);
+            for (int j = 0; j < row.length; j++) {
+                if (Double.isNaN(row[j]) || Double.isInfinite(row[j])) {
+                    throw new IllegalArgumentException(
+                            "Invalid value at row " + i + ", column " + j +
+                                    ": " + row[j]
+                    );
+                }
+            }
+        }
+    }
+
+    /**
+     * Check for the unchecked single-row inference paths: the row must not be
+     * null, and its values are only scanned for NaN and Infinity in strict
+     * validation mode. Callers still check the feature count.
+     */
+    public static void checkInputRow(double[] input) {
+        if (STRICT_VALIDATION) {
+            validateInputRow(input);
+        } else if (input == null) {
+            throw new IllegalArgumentException("Input row is null.");
+        }
+    }
+
     public static void validateInputRow(double[] input) {
         if (input == null) {
             throw new IllegalArgumentException("Input row is null.");
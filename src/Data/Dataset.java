@@ -1,11 +1,216 @@
 package Data;
 
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.random.RandomGenerator;
+
+/**
+ * Labelled rows of features kept in one contiguous primitive buffer (uint8,
+ * float or double, on or off the heap) instead of one array per row.
+ * {@link #subset} and {@link #split} return views that share the buffer and
+ * only hold row indices, so splitting never copies features; writes through
+ * {@link #set} are seen by every view of the same buffer.
+ */
 public class Dataset {
-    public double[][] inputs;
-    public int[] labels;
+    private final Features features;
+    // labels by storage row, shared with every view; null for unlabelled inputs
+    private final int[] labels;
+    // storage row of every row of this view, or null for all storage rows in order
+    private final int[] index;
 
+    // Copies the rows into one contiguous double buffer
     public Dataset(double[][] inputs, int[] labels) {
-        this.inputs = inputs;
+        this(copy(inputs, labels), labels.clone(), null);
+    }
+
+    private Dataset(Features features, int[] labels, int[] index) {
+        this.features = features;
         this.labels = labels;
+        this.index = index;
+    }
+
+    private static Features copy(double[][] inputs, int[] labels) {
+        if (inputs.length != labels.length) {
+            throw new IllegalArgumentException("Number of Inputs doesn't match the outputs");
+        }
+        int numFeatures = inputs.length == 0 ? 0 : inputs[0].length;
+        Features features = Features.allocate(StorageType.DOUBLE, inputs.length, numFeatures, false);
+        for (int row = 0; row < inputs.length; row++) {
+            if (inputs[row].length != numFeatures) {
+                throw new IllegalArgumentException("Inconsistent feature length at row " + row +
+                        ": expected " + numFeatures + ", got " + inputs[row].length);
+            }
+            for (int i = 0; i < numFeatures; i++) {
+                features.set(row, i, inputs[row][i]);
+            }
+        }
+        return features;
+    }
+
+    // Uses existing rows without copying them; the dataset is not contiguous. All rows must have the same length
+    public static Dataset wrap(double[][] inputs, int[] labels) {
+        if (inputs.length != labels.length) {
+            throw new IllegalArgumentException("Number of Inputs doesn't match the outputs");
+        }
+        return new Dataset(new Features.Rows(inputs), labels, null);
+    }
+
+    // Unlabelled rows for inference, wrapped without copying; all rows must have the same length
+    public static Dataset wrap(double[][] inputs) {
+        return new Dataset(new Features.Rows(inputs), null, null);
+    }
+
+    /**
+     * Uses {@code pixels} (heap, direct or memory-mapped) as uint8 features
+     * without copying: {@code labels.length} rows of {@code numFeatures} bytes,
+     * each read as {@code value / 255.0}.
+     */
+    public static Dataset uint8(ByteBuffer pixels, int numFeatures, int[] labels) {
+        if ((long) labels.length * numFeatures != pixels.capacity()) {
+            throw new IllegalArgumentException("Number of pixels doesn't match the labels");
+        }
+        return new Dataset(new Features.Uint8(pixels, numFeatures), labels, null);
+    }
+
+    public int rows() {
+        return index == null ? features.rows() : index.length;
+    }
+
+    public int numFeatures() {
+        return features.numFeatures();
+    }
+
+    public StorageType storageType() {
+        return features.type();
+    }
+
+    public boolean isDirect() {
+        return features.isDirect();
+    }
+
+    public boolean hasLabels() {
+        return labels != null;
+    }
+
+    public int label(int row) {
+        requireLabels();
+        return labels[storageRow(row)];
+    }
+
+    // Copy of the labels in row order
+    public int[] labels() {
+        requireLabels();
+        if (index == null) {
+            return labels.clone();
+        }
+        int[] result = new int[index.length];
+        for (int i = 0; i < index.length; i++) {
+            result[i] = labels[index[i]];
+        }
+        return result;
+    }
+
+    public double get(int row, int feature) {
+        return features.get(storageRow(row), feature);
+    }
+
+    // uint8 storage only holds values in [0,1], rounded to steps of 1/255
+    public void set(int row, int feature, double value) {
+        features.set(storageRow(row), feature, value);
+    }
+
+    public void copyRow(int row, double[] dest, int offset) {
+        features.copyRow(storageRow(row), dest, offset);
+    }
+
+    public void copyRow(int row, float[] dest, int offset) {
+        features.copyRow(storageRow(row), dest, offset);
+    }
+
+    public double[] row(int row) {
+        double[] result = new double[numFeatures()];
+        copyRow(row, result, 0);
+        return result;
+    }
+
+    /**
+     * Read-only view of one row's storage without copying: a {@code ByteBuffer}
+     * of raw uint8 values, a {@code FloatBuffer} or a {@code DoubleBuffer},
+     * depending on {@link #storageType()}.
+     */
+    public Buffer rowView(int row) {
+        return features.view(storageRow(row));
+    }
+
+    // View of the given rows of this dataset, in the given order
+    public Dataset subset(int[] rows) {
+        int[] storageRows = new int[rows.length];
+        for (int i = 0; i < rows.length; i++) {
+            storageRows[i] = storageRow(rows[i]);
+        }
+        return new Dataset(features, labels, storageRows);
+    }
+
+    // Shuffled train/test views; the first holds (int) (rows() * trainRatio) rows
+    public Dataset[] split(double trainRatio, RandomGenerator random) {
+        int total = rows();
+        int[] order = new int[total];
+        for (int i = 0; i < total; i++) {
+            order[i] = i;
+        }
+        for (int i = total - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = order[i];
+            order[i] = order[j];
+            order[j] = swap;
+        }
+        int trainSize = (int) (total * trainRatio);
+        int[] train = new int[trainSize];
+        int[] test = new int[total - trainSize];
+        System.arraycopy(order, 0, train, 0, trainSize);
+        System.arraycopy(order, trainSize, test, 0, test.length);
+        return new Dataset[]{subset(train), subset(test)};
+    }
+
+    // Compact copy of this dataset's rows into a new buffer of the given type
+    public Dataset convert(StorageType type, boolean direct) {
+        int rows = rows();
+        int numFeatures = numFeatures();
+        Features target = Features.allocate(type, rows, numFeatures, direct);
+        double[] row = new double[numFeatures];
+        for (int r = 0; r < rows; r++) {
+            copyRow(r, row, 0);
+            for (int i = 0; i < numFeatures; i++) {
+                target.set(r, i, row[i]);
+            }
+        }
+        return new Dataset(target, labels == null ? null : labels(), null);
+    }
+
+    // Copies the features into one array per row
+    public double[][] toArray() {
+        double[][] result = new double[rows()][];
+        for (int r = 0; r < result.length; r++) {
+            result[r] = row(r);
+        }
+        return result;
+    }
+
+    // Bytes of feature storage behind this dataset, shared with its views
+    public long storageBytes() {
+        return (long) features.rows() * features.numFeatures() * features.type().bytesPerValue();
+    }
+
+    private void requireLabels() {
+        if (labels == null) {
+            throw new IllegalStateException("Dataset has no labels");
+        }
+    }
+
+    private int storageRow(int row) {
+        if (row < 0 || row >= rows()) {
+            throw new IndexOutOfBoundsException("Row " + row + " out of " + rows());
+        }
+        return index == null ? row : index[row];
     }
-}
\ No newline at end of file
+}
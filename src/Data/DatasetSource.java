@@ -0,0 +1,92 @@
+package Data;
+
+import utils.SeededRandom;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+// BatchSource over a Dataset that is already in memory; only the visiting order is shuffled
+public class DatasetSource implements BatchSource {
+    private final Dataset dataset;
+    private final int[] order;
+    private SeededRandom random;
+    private int position;
+
+    public DatasetSource(Dataset dataset) {
+        this(dataset, new SeededRandom());
+    }
+
+    // Visits the rows in the same sequence of orders for the same seed
+    public DatasetSource(Dataset dataset, long seed) {
+        this(dataset, new SeededRandom(seed));
+    }
+
+    public DatasetSource(Dataset dataset, SeededRandom random) {
+        this.dataset = dataset;
+        this.random = random;
+        order = new int[dataset.rows()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        position = order.length;
+    }
+
+    @Override
+    public int numFeatures() {
+        return dataset.numFeatures();
+    }
+
+    @Override
+    public int size() {
+        return dataset.rows();
+    }
+
+    @Override
+    public void startEpoch() {
+        // Fisher-Yates over the previous order
+        for (int i = order.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = order[i];
+            order[i] = order[j];
+            order[j] = swap;
+        }
+        position = 0;
+    }
+
+    @Override
+    public int next(double[] inputs, int[] labels, int maxRows) {
+        int numFeatures = dataset.numFeatures();
+        int rows = Math.min(maxRows, order.length - position);
+        for (int r = 0; r < rows; r++) {
+            int idx = order[position + r];
+            dataset.copyRow(idx, inputs, r * numFeatures);
+            labels[r] = dataset.label(idx);
+        }
+        position += rows;
+        return rows;
+    }
+
+    @Override
+    public Serializable saveState() {
+        return new State(order.clone(), position, random.copy());
+    }
+
+    @Override
+    public void restoreState(Serializable state) {
+        if (!(state instanceof State saved) || saved.order.length != order.length) {
+            throw new IllegalArgumentException("Source state doesn't match the dataset");
+        }
+        System.arraycopy(saved.order, 0, order, 0, order.length);
+        position = saved.position;
+        random = saved.random.copy();
+    }
+
+    @Override
+    public void close() {
+    }
+
+    private record State(int[] order, int position, SeededRandom random) implements Serializable {
+        @Serial
+        private static final long serialVersionUID = 1L;
+    }
+}
@@ -0,0 +1,219 @@
+package Data;
+
+import utils.WorkerPools;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Per-feature preprocessing fitted from {@link FeatureStatistics}: NaN values
+ * are replaced by the feature's mean, then every value becomes
+ * {@code (value - offset) / scale}. Features with a scale of 0 (constant in the
+ * fitted data) become 0. Stored with the model, so inference applies the same
+ * transform as training without recomputing statistics.
+ */
+public final class FeatureScaler implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+    private static final int CHUNK_ROWS = 256;
+
+    private final double[] fill;
+    private final double[] offset;
+    private final double[] scale;
+    // imputers leave infinite values as they are instead of rejecting them
+    private final boolean imputeOnly;
+
+    private FeatureScaler(double[] fill, double[] offset, double[] scale) {
+        this(fill, offset, scale, false);
+    }
+
+    private FeatureScaler(double[] fill, double[] offset, double[] scale, boolean imputeOnly) {
+        this.fill = fill;
+        this.offset = offset;
+        this.scale = scale;
+        this.imputeOnly = imputeOnly;
+    }
+
+    // Rebuilds a stored scaler from its per-feature arrays, see fill(), offsets() and scales()
+    public static FeatureScaler of(double[] fill, double[] offset, double[] scale, boolean imputeOnly) {
+        if (fill.length != offset.length || fill.length != scale.length) {
+            throw new IllegalArgumentException("Scaler arrays must have one value per feature");
+        }
+        return new FeatureScaler(fill.clone(), offset.clone(), scale.clone(), imputeOnly);
+    }
+
+    // Maps the fitted min/max of every feature to [0, 1]
+    public static FeatureScaler minMax(FeatureStatistics statistics) {
+        int numFeatures = statistics.numFeatures();
+        double[] offset = new double[numFeatures];
+        double[] scale = new double[numFeatures];
+        for (int j = 0; j < numFeatures; j++) {
+            if (statistics.count(j) > 0) {
+                offset[j] = statistics.min(j);
+                scale[j] = statistics.max(j) - statistics.min(j);
+            }
+        }
+        return new FeatureScaler(means(statistics), offset, scale);
+    }
+
+    // Maps every feature to zero mean and unit variance
+    public static FeatureScaler standard(FeatureStatistics statistics) {
+        int numFeatures = statistics.numFeatures();
+        double[] offset = new double[numFeatures];
+        double[] scale = new double[numFeatures];
+        for (int j = 0; j < numFeatures; j++) {
+            offset[j] = statistics.mean(j);
+            scale[j] = statistics.standardDeviation(j);
+        }
+        return new FeatureScaler(means(statistics), offset, scale);
+    }
+
+    // Only replaces NaN values by the feature's mean; infinite values pass through
+    public static FeatureScaler imputer(FeatureStatistics statistics) {
+        double[] scale = new double[statistics.numFeatures()];
+        Arrays.fill(scale, 1.0);
+        return new FeatureScaler(means(statistics), new double[scale.length], scale, true);
+    }
+
+    private static double[] means(FeatureStatistics statistics) {
+        double[] means = new double[statistics.numFeatures()];
+        for (int j = 0; j < means.length; j++) {
+            means[j] = statistics.mean(j);
+        }
+        return means;
+    }
+
+    public int numFeatures() {
+        return fill.length;
+    }
+
+    // Replacement for NaN values of every feature
+    public double[] fill() {
+        return fill.clone();
+    }
+
+    public double[] offsets() {
+        return offset.clone();
+    }
+
+    public double[] scales() {
+        return scale.clone();
+    }
+
+    public boolean isImputeOnly() {
+        return imputeOnly;
+    }
+
+    // Transforms a single value of the given feature, e.g. for IncrementalClassifier updates
+    public double transform(int feature, double value) {
+        if (feature < 0 || feature >= fill.length) {
+            throw new IllegalArgumentException("Feature index out of range: " + feature);
+        }
+        return transform(feature, value, -1, feature);
+    }
+
+    // Transforms one row in place and returns it
+    public double[] transform(double[] row) {
+        if (row.length != fill.length) {
+            throw new IllegalArgumentException("Number of features doesn't match the scaler");
+        }
+        for (int j = 0; j < row.length; j++) {
+            row[j] = transform(j, row[j], -1, j);
+        }
+        return row;
+    }
+
+    // Transforms the rows in place, single-threaded
+    public void transform(double[][] inputs) {
+        for (int i = 0; i < inputs.length; i++) {
+            if (inputs[i].length != fill.length) {
+                throw new IllegalArgumentException("Number of features doesn't match the scaler");
+            }
+            for (int j = 0; j < fill.length; j++) {
+                inputs[i][j] = transform(j, inputs[i][j], i, j);
+            }
+        }
+    }
+
+    public void transform(Dataset dataset) {
+        transform(dataset, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Imputes, scales and validates the dataset's rows in place in one pass
+     * over chunks of rows, spread over up to {@code threads} threads. Throws
+     * for infinite values, except for imputers; rows of other chunks may already be transformed by
+     * then. uint8 datasets can't hold the results and must be converted first.
+     */
+    public void transform(Dataset dataset, int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Number of threads can't be less than 1");
+        }
+        if (dataset.numFeatures() != fill.length) {
+            throw new IllegalArgumentException("Number of features doesn't match the scaler");
+        }
+        if (dataset.storageType() == StorageType.UINT8) {
+            throw new IllegalArgumentException("uint8 features can't be rescaled in place; convert the dataset first");
+        }
+        TransformTask task = new TransformTask(dataset, 0, dataset.rows());
+        if (threads == 1 || dataset.rows() <= CHUNK_ROWS) {
+            task.compute();
+            return;
+        }
+        WorkerPools.get(threads).invoke(task);
+    }
+
+    // row is -1 for a single row
+    private double transform(int feature, double value, long row, int column) {
+        if (Double.isNaN(value)) {
+            value = fill[feature];
+        } else if (Double.isInfinite(value)) {
+            if (imputeOnly) {
+                return value;
+            }
+            throw new IllegalArgumentException("Invalid value at " + (row >= 0 ? "row " + row + ", " : "")
+                    + "column " + column + ": " + value);
+        }
+        return scale[feature] != 0.0 ? (value - offset[feature]) / scale[feature] : 0.0;
+    }
+
+    private final class TransformTask extends RecursiveAction {
+        @Serial
+        private static final long serialVersionUID = 1L;
+        private final Dataset dataset;
+        private final int from;
+        private final int to;
+
+        TransformTask(Dataset dataset, int from, int to) {
+            this.dataset = dataset;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            int chunks = (to - from + CHUNK_ROWS - 1) / CHUNK_ROWS;
+            if (chunks > 1) {
+                int mid = from + chunks / 2 * CHUNK_ROWS;
+                TransformTask left = new TransformTask(dataset, from, mid);
+                TransformTask right = new TransformTask(dataset, mid, to);
+                if (inForkJoinPool()) {
+                    invokeAll(left, right);
+                } else {
+                    left.compute();
+                    right.compute();
+                }
+                return;
+            }
+            double[] row = new double[fill.length];
+            for (int r = from; r < to; r++) {
+                dataset.copyRow(r, row, 0);
+                for (int j = 0; j < row.length; j++) {
+                    dataset.set(r, j, transform(j, row[j], r, j));
+                }
+            }
+        }
+    }
+}
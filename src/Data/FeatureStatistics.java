@@ -0,0 +1,265 @@
+package Data;
+
+import utils.WorkerPools;
+
+import java.io.Serial;
+import java.util.Arrays;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Per-feature statistics of a dataset gathered in one pass: min/max, mean and
+ * variance, and counts of NaN and infinite values. NaN and infinite
+ * values are left out of the other statistics. Statistics of disjoint rows
+ * can be {@link #merge merged}, so {@link #of(Dataset, int)} scans chunks of
+ * rows in parallel and combines them in a fixed order; the result doesn't
+ * depend on the number of threads.
+ */
+public final class FeatureStatistics {
+    private static final int CHUNK_ROWS = 256;
+
+    private final long[] count;
+    private final long[] nanCount;
+    private final long[] infiniteCount;
+    private final double[] mean;
+    private final double[] m2;
+    private final double[] min;
+    private final double[] max;
+    private long rows;
+    // position of the first NaN and the first infinite value by row, or -1
+    private long nanRow = -1;
+    private int nanColumn = -1;
+    private long infiniteRow = -1;
+    private int infiniteColumn = -1;
+    private double infiniteValue;
+
+    private FeatureStatistics(int numFeatures) {
+        count = new long[numFeatures];
+        nanCount = new long[numFeatures];
+        infiniteCount = new long[numFeatures];
+        mean = new double[numFeatures];
+        m2 = new double[numFeatures];
+        min = new double[numFeatures];
+        max = new double[numFeatures];
+        Arrays.fill(min, Double.POSITIVE_INFINITY);
+        Arrays.fill(max, Double.NEGATIVE_INFINITY);
+    }
+
+    public static FeatureStatistics of(Dataset dataset) {
+        return of(dataset, Runtime.getRuntime().availableProcessors());
+    }
+
+    public static FeatureStatistics of(Dataset dataset, int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Number of threads can't be less than 1");
+        }
+        ScanTask task = new ScanTask(dataset, 0, dataset.rows());
+        if (threads == 1 || dataset.rows() <= CHUNK_ROWS) {
+            return task.compute();
+        }
+        return WorkerPools.get(threads).invoke(task);
+    }
+
+    /*
+     * Adds rows [from, to) of the dataset, which must be the first rows added.
+     * Inside one chunk the moments come from sums shifted by the chunk's first
+     * row, which stays accurate for a few hundred rows and keeps divisions out
+     * of the loop; chunks are then combined with merge().
+     */
+    private void scan(Dataset dataset, int from, int to) {
+        int numFeatures = count.length;
+        double[] row = new double[numFeatures];
+        double[] shift = new double[numFeatures];
+        double[] sum = new double[numFeatures];
+        double[] sumOfSquares = new double[numFeatures];
+        dataset.copyRow(from, shift, 0);
+        for (int j = 0; j < numFeatures; j++) {
+            if (!Double.isFinite(shift[j])) {
+                shift[j] = 0.0;
+            }
+        }
+        for (int r = from; r < to; r++) {
+            dataset.copyRow(r, row, 0);
+            for (int j = 0; j < numFeatures; j++) {
+                double value = row[j];
+                if (Double.isNaN(value)) {
+                    nanCount[j]++;
+                    if (nanRow < 0) {
+                        nanRow = r;
+                        nanColumn = j;
+                    }
+                } else if (Double.isInfinite(value)) {
+                    infiniteCount[j]++;
+                    if (infiniteRow < 0) {
+                        infiniteRow = r;
+                        infiniteColumn = j;
+                        infiniteValue = value;
+                    }
+                } else {
+                    double delta = value - shift[j];
+                    sum[j] += delta;
+                    sumOfSquares[j] += delta * delta;
+                    count[j]++;
+                    if (value < min[j]) min[j] = value;
+                    if (value > max[j]) max[j] = value;
+                }
+            }
+        }
+        for (int j = 0; j < numFeatures; j++) {
+            long n = count[j];
+            if (n > 0) {
+                mean[j] = shift[j] + sum[j] / n;
+                m2[j] = Math.max(0.0, sumOfSquares[j] - sum[j] * sum[j] / n);
+            }
+        }
+        rows = to - from;
+    }
+
+    // Combines the statistics of other rows into this one (Chan et al.'s parallel Welford update)
+    public void merge(FeatureStatistics other) {
+        if (other.count.length != count.length) {
+            throw new IllegalArgumentException("Number of features doesn't match the statistics");
+        }
+        for (int j = 0; j < count.length; j++) {
+            long na = count[j];
+            long nb = other.count[j];
+            if (nb > 0) {
+                long n = na + nb;
+                double delta = other.mean[j] - mean[j];
+                mean[j] += delta * nb / n;
+                m2[j] += other.m2[j] + delta * delta * ((double) na * nb / n);
+                count[j] = n;
+                min[j] = Math.min(min[j], other.min[j]);
+                max[j] = Math.max(max[j], other.max[j]);
+            }
+            nanCount[j] += other.nanCount[j];
+            infiniteCount[j] += other.infiniteCount[j];
+        }
+        rows += other.rows;
+        if (other.nanRow >= 0 && (nanRow < 0 || other.nanRow < nanRow)) {
+            nanRow = other.nanRow;
+            nanColumn = other.nanColumn;
+        }
+        if (other.infiniteRow >= 0 && (infiniteRow < 0 || other.infiniteRow < infiniteRow)) {
+            infiniteRow = other.infiniteRow;
+            infiniteColumn = other.infiniteColumn;
+            infiniteValue = other.infiniteValue;
+        }
+    }
+
+    // Throws for the first NaN or infinite value, like DataHandler.validateInputs
+    public void requireFinite() {
+        if (nanRow >= 0 && (infiniteRow < 0 || nanRow < infiniteRow
+                || nanRow == infiniteRow && nanColumn < infiniteColumn)) {
+            throw invalidValue(nanRow, nanColumn, Double.NaN);
+        }
+        requireNoInfinite();
+    }
+
+    // Throws for the first infinite value; NaN values are allowed
+    public void requireNoInfinite() {
+        if (infiniteRow >= 0) {
+            throw invalidValue(infiniteRow, infiniteColumn, infiniteValue);
+        }
+    }
+
+    private static IllegalArgumentException invalidValue(long row, int column, double value) {
+        return new IllegalArgumentException("Invalid value at row " + row + ", column " + column + ": " + value);
+    }
+
+    public boolean hasNaN() {
+        return nanRow >= 0;
+    }
+
+    public boolean hasInfinite() {
+        return infiniteRow >= 0;
+    }
+
+    public int numFeatures() {
+        return count.length;
+    }
+
+    public long rows() {
+        return rows;
+    }
+
+    // Number of finite values of the feature
+    public long count(int feature) {
+        return count[feature];
+    }
+
+    public long nanCount(int feature) {
+        return nanCount[feature];
+    }
+
+    public long infiniteCount(int feature) {
+        return infiniteCount[feature];
+    }
+
+    // Mean of the finite values, or 0 if there are none
+    public double mean(int feature) {
+        return mean[feature];
+    }
+
+    // Population variance of the finite values
+    public double variance(int feature) {
+        return count[feature] > 0 ? m2[feature] / count[feature] : 0.0;
+    }
+
+    public double standardDeviation(int feature) {
+        return Math.sqrt(variance(feature));
+    }
+
+    // Smallest finite value, or +Infinity if there are none
+    public double min(int feature) {
+        return min[feature];
+    }
+
+    // Largest finite value, or -Infinity if there are none
+    public double max(int feature) {
+        return max[feature];
+    }
+
+    /*
+     * Statistics of rows [from, to). Ranges are split on chunk boundaries by
+     * halving the number of chunks, so the merge tree only depends on the row
+     * count. Called directly, compute() runs the same tree on one thread.
+     */
+    private static final class ScanTask extends RecursiveTask<FeatureStatistics> {
+        @Serial
+        private static final long serialVersionUID = 1L;
+        private final Dataset dataset;
+        private final int from;
+        private final int to;
+
+        ScanTask(Dataset dataset, int from, int to) {
+            this.dataset = dataset;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected FeatureStatistics compute() {
+            int chunks = (to - from + CHUNK_ROWS - 1) / CHUNK_ROWS;
+            if (chunks <= 1) {
+                FeatureStatistics statistics = new FeatureStatistics(dataset.numFeatures());
+                if (to > from) {
+                    statistics.scan(dataset, from, to);
+                }
+                return statistics;
+            }
+            int mid = from + chunks / 2 * CHUNK_ROWS;
+            ScanTask left = new ScanTask(dataset, from, mid);
+            ScanTask right = new ScanTask(dataset, mid, to);
+            FeatureStatistics statistics;
+            if (inForkJoinPool()) {
+                right.fork();
+                statistics = left.compute();
+                statistics.merge(right.join());
+            } else {
+                statistics = left.compute();
+                statistics.merge(right.compute());
+            }
+            return statistics;
+        }
+    }
+}
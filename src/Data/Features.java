@@ -0,0 +1,300 @@
+package Data;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+
+/*
+ * Feature storage behind a Dataset: rows() x numFeatures() values, addressed by
+ * storage row. All but Rows keep every value in one contiguous buffer, on or off
+ * the heap.
+ */
+sealed interface Features {
+    StorageType type();
+
+    int rows();
+
+    int numFeatures();
+
+    double get(int row, int feature);
+
+    void set(int row, int feature, double value);
+
+    void copyRow(int row, double[] dest, int offset);
+
+    void copyRow(int row, float[] dest, int offset);
+
+    // Read-only, zero-copy view of one row
+    Buffer view(int row);
+
+    boolean isDirect();
+
+    static Features allocate(StorageType type, int rows, int numFeatures, boolean direct) {
+        long size = (long) rows * numFeatures;
+        if (size * type.bytesPerValue() > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Dataset is too large for one buffer: " + rows + " x " + numFeatures);
+        }
+        int length = (int) size;
+        return switch (type) {
+            case UINT8 -> new Uint8(direct ? ByteBuffer.allocateDirect(length) : ByteBuffer.allocate(length),
+                    numFeatures);
+            case FLOAT -> new Float32(direct
+                    ? ByteBuffer.allocateDirect(length * Float.BYTES).order(ByteOrder.nativeOrder()).asFloatBuffer()
+                    : FloatBuffer.allocate(length), numFeatures);
+            case DOUBLE -> new Float64(direct
+                    ? ByteBuffer.allocateDirect(length * Double.BYTES).order(ByteOrder.nativeOrder()).asDoubleBuffer()
+                    : DoubleBuffer.allocate(length), numFeatures);
+        };
+    }
+
+    final class Uint8 implements Features {
+        private final ByteBuffer values;
+        private final int numFeatures;
+
+        Uint8(ByteBuffer values, int numFeatures) {
+            this.values = values;
+            this.numFeatures = numFeatures;
+        }
+
+        @Override
+        public StorageType type() {
+            return StorageType.UINT8;
+        }
+
+        @Override
+        public int rows() {
+            return numFeatures == 0 ? 0 : values.capacity() / numFeatures;
+        }
+
+        @Override
+        public int numFeatures() {
+            return numFeatures;
+        }
+
+        @Override
+        public double get(int row, int feature) {
+            return (values.get(row * numFeatures + feature) & 0xFF) / 255.0;
+        }
+
+        // Rounds to the nearest step of 1/255; values must lie in [0,1]
+        @Override
+        public void set(int row, int feature, double value) {
+            if (!(value >= 0.0 && value <= 1.0)) {
+                throw new IllegalArgumentException("uint8 features must be in [0,1]: " + value);
+            }
+            values.put(row * numFeatures + feature, (byte) Math.round(value * 255.0));
+        }
+
+        @Override
+        public void copyRow(int row, double[] dest, int offset) {
+            int base = row * numFeatures;
+            for (int i = 0; i < numFeatures; i++) {
+                dest[offset + i] = (values.get(base + i) & 0xFF) / 255.0;
+            }
+        }
+
+        @Override
+        public void copyRow(int row, float[] dest, int offset) {
+            int base = row * numFeatures;
+            for (int i = 0; i < numFeatures; i++) {
+                dest[offset + i] = (float) ((values.get(base + i) & 0xFF) / 255.0);
+            }
+        }
+
+        @Override
+        public Buffer view(int row) {
+            return values.slice(row * numFeatures, numFeatures).asReadOnlyBuffer();
+        }
+
+        @Override
+        public boolean isDirect() {
+            return values.isDirect();
+        }
+    }
+
+    final class Float32 implements Features {
+        private final FloatBuffer values;
+        private final int numFeatures;
+
+        Float32(FloatBuffer values, int numFeatures) {
+            this.values = values;
+            this.numFeatures = numFeatures;
+        }
+
+        @Override
+        public StorageType type() {
+            return StorageType.FLOAT;
+        }
+
+        @Override
+        public int rows() {
+            return numFeatures == 0 ? 0 : values.capacity() / numFeatures;
+        }
+
+        @Override
+        public int numFeatures() {
+            return numFeatures;
+        }
+
+        @Override
+        public double get(int row, int feature) {
+            return values.get(row * numFeatures + feature);
+        }
+
+        @Override
+        public void set(int row, int feature, double value) {
+            values.put(row * numFeatures + feature, (float) value);
+        }
+
+        @Override
+        public void copyRow(int row, double[] dest, int offset) {
+            int base = row * numFeatures;
+            for (int i = 0; i < numFeatures; i++) {
+                dest[offset + i] = values.get(base + i);
+            }
+        }
+
+        @Override
+        public void copyRow(int row, float[] dest, int offset) {
+            values.get(row * numFeatures, dest, offset, numFeatures);
+        }
+
+        @Override
+        public Buffer view(int row) {
+            return values.slice(row * numFeatures, numFeatures).asReadOnlyBuffer();
+        }
+
+        @Override
+        public boolean isDirect() {
+            return values.isDirect();
+        }
+    }
+
+    final class Float64 implements Features {
+        private final DoubleBuffer values;
+        private final int numFeatures;
+
+        Float64(DoubleBuffer values, int numFeatures) {
+            this.values = values;
+            this.numFeatures = numFeatures;
+        }
+
+        @Override
+        public StorageType type() {
+            return StorageType.DOUBLE;
+        }
+
+        @Override
+        public int rows() {
+            return numFeatures == 0 ? 0 : values.capacity() / numFeatures;
+        }
+
+        @Override
+        public int numFeatures() {
+            return numFeatures;
+        }
+
+        @Override
+        public double get(int row, int feature) {
+            return values.get(row * numFeatures + feature);
+        }
+
+        @Override
+        public void set(int row, int feature, double value) {
+            values.put(row * numFeatures + feature, value);
+        }
+
+        @Override
+        public void copyRow(int row, double[] dest, int offset) {
+            values.get(row * numFeatures, dest, offset, numFeatures);
+        }
+
+        @Override
+        public void copyRow(int row, float[] dest, int offset) {
+            int base = row * numFeatures;
+            for (int i = 0; i < numFeatures; i++) {
+                dest[offset + i] = (float) values.get(base + i);
+            }
+        }
+
+        @Override
+        public Buffer view(int row) {
+            return values.slice(row * numFeatures, numFeatures).asReadOnlyBuffer();
+        }
+
+        @Override
+        public boolean isDirect() {
+            return values.isDirect();
+        }
+    }
+
+    // Existing double[][] rows, wrapped without copying
+    final class Rows implements Features {
+        private final double[][] values;
+
+        // Rows are copied whole, so every row must have the first row's length
+        Rows(double[][] values) {
+            int numFeatures = values.length == 0 || values[0] == null ? 0 : values[0].length;
+            for (int i = 0; i < values.length; i++) {
+                if (values[i] == null) {
+                    throw new IllegalArgumentException("Row " + i + " is null.");
+                }
+                if (values[i].length != numFeatures) {
+                    throw new IllegalArgumentException("Inconsistent feature length at row " + i
+                            + ": expected " + numFeatures + ", got " + values[i].length);
+                }
+            }
+            this.values = values;
+        }
+
+        @Override
+        public StorageType type() {
+            return StorageType.DOUBLE;
+        }
+
+        @Override
+        public int rows() {
+            return values.length;
+        }
+
+        @Override
+        public int numFeatures() {
+            return values.length == 0 ? 0 : values[0].length;
+        }
+
+        @Override
+        public double get(int row, int feature) {
+            return values[row][feature];
+        }
+
+        @Override
+        public void set(int row, int feature, double value) {
+            values[row][feature] = value;
+        }
+
+        @Override
+        public void copyRow(int row, double[] dest, int offset) {
+            System.arraycopy(values[row], 0, dest, offset, values[row].length);
+        }
+
+        @Override
+        public void copyRow(int row, float[] dest, int offset) {
+            double[] source = values[row];
+            for (int i = 0; i < source.length; i++) {
+                dest[offset + i] = (float) source[i];
+            }
+        }
+
+        @Override
+        public Buffer view(int row) {
+            return DoubleBuffer.wrap(values[row]).asReadOnlyBuffer();
+        }
+
+        @Override
+        public boolean isDirect() {
+            return false;
+        }
+    }
+}
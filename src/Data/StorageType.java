@@ -0,0 +1,19 @@
+package Data;
+
+// Element type of a Dataset's feature buffer
+public enum StorageType {
+    // bytes read as value / 255.0, e.g. grayscale pixels
+    UINT8(Byte.BYTES),
+    FLOAT(Float.BYTES),
+    DOUBLE(Double.BYTES);
+
+    private final int bytes;
+
+    StorageType(int bytes) {
+        this.bytes = bytes;
+    }
+
+    public int bytesPerValue() {
+        return bytes;
+    }
+}
@@ -0,0 +1,88 @@
+package Data;
+
+/**
+ * A {@link Dataset} whose shape, values and labels were checked once, when it
+ * was created. Networks and predictors accept it without scanning the rows
+ * again, so repeated classifyAll, evaluateAccuracy or train calls on the same
+ * data only pay for the check once. Values written into the dataset's buffer
+ * afterwards are not checked again unless strict validation is on (see
+ * {@link DataHandler#strictValidation()}).
+ */
+public final class ValidatedDataset {
+    private final Dataset dataset;
+    // one more than the largest label, 0 for unlabelled rows
+    private final int labelBound;
+
+    private ValidatedDataset(Dataset dataset, int labelBound) {
+        this.dataset = dataset;
+        this.labelBound = labelBound;
+    }
+
+    // Checks every value for NaN/Infinity and every label for being non-negative
+    public static ValidatedDataset of(Dataset dataset) {
+        DataHandler.validateInputs(dataset);
+        return new ValidatedDataset(dataset, labelBound(dataset));
+    }
+
+    public static ValidatedDataset of(double[][] inputs, int[] labels) {
+        DataHandler.validateInputs(inputs);
+        Dataset dataset = Dataset.wrap(inputs, labels);
+        return new ValidatedDataset(dataset, labelBound(dataset));
+    }
+
+    public static ValidatedDataset of(double[][] inputs) {
+        DataHandler.validateInputs(inputs);
+        return new ValidatedDataset(Dataset.wrap(inputs), 0);
+    }
+
+    private static int labelBound(Dataset dataset) {
+        int labelBound = 0;
+        if (dataset.hasLabels()) {
+            for (int i = 0; i < dataset.rows(); i++) {
+                int label = dataset.label(i);
+                if (label < 0) {
+                    throw new IllegalArgumentException("Invalid label at index " + i + ": " + label);
+                }
+                labelBound = Math.max(labelBound, label + 1);
+            }
+        }
+        return labelBound;
+    }
+
+    public Dataset dataset() {
+        return dataset;
+    }
+
+    public int rows() {
+        return dataset.rows();
+    }
+
+    public int numFeatures() {
+        return dataset.numFeatures();
+    }
+
+    public boolean hasLabels() {
+        return dataset.hasLabels();
+    }
+
+    // Checks the features and labels against a network's input and output sizes
+    public void requireCompatible(int numFeatures, int numClasses, boolean labelled) {
+        if (DataHandler.strictValidation()) {
+            DataHandler.validateInputs(dataset);
+        }
+        if (dataset.numFeatures() != numFeatures) {
+            throw new IllegalArgumentException("Number of features doesn't match the ANN");
+        }
+        if (labelled) {
+            if (!dataset.hasLabels()) {
+                throw new IllegalArgumentException("Labels array is null.");
+            }
+            if (DataHandler.strictValidation()) {
+                DataHandler.validateLabels(dataset.labels(), numClasses);
+            } else if (labelBound > numClasses) {
+                throw new IllegalArgumentException("Invalid label " + (labelBound - 1) + " for " + numClasses
+                        + " classes");
+            }
+        }
+    }
+}
@@ -1,4 +1,5 @@
-import ANN.NeuralNetwork;
+import ANN.IncrementalClassifier;
+import Data.FeatureScaler;
 import utils.LabelEncoder;
 import utils.ModelIO;
 import utils.TrainedModel;
@@ -8,6 +9,11 @@ import java.awt.*;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class Draw {
 
@@ -20,15 +26,34 @@ public class Draw {
     private static final int DRAW_SIZE = 56;    // <-- CHANGE THIS
     private static final int WINDOW_SIZE = 672; // stays constant
     private static final int NN_SIZE = 28;      // fixed
+    private static final int BLOCK = DRAW_SIZE / NN_SIZE; // must be integer (e.g. 56/28 = 2)
 
     // ===== Visual scale (each pixel becomes SCALE×SCALE) =====
     private static final int SCALE = WINDOW_SIZE / DRAW_SIZE;
 
     private static BufferedImage drawImage;
-    private static NeuralNetwork neuralNetwork;
     private static LabelEncoder labelEncoder;
     private static JLabel predictionLabel;
 
+    // ===== Incremental NN input, only touched on the EDT =====
+    // pixel sum of every BLOCK×BLOCK cell and the cells changed since the last request
+    private static final int[] cellSums = new int[NN_SIZE * NN_SIZE];
+    private static final BitSet dirtyCells = new BitSet(NN_SIZE * NN_SIZE);
+
+    // ===== Classifier, only touched on its own thread =====
+    private static IncrementalClassifier classifier;
+    private static FeatureScaler scaler; // null if the model was trained on the raw pixels
+    private static final ExecutorService classifierThread = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "draw-classifier");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // ===== Request state, only touched on the EDT =====
+    private static boolean requestInFlight;
+    private static boolean redrawnSinceRequest;
+    private static int generation; // bumped by Clear, so answers for the old drawing are dropped
+
     public static void main(String[] args) {
         SwingUtilities.invokeLater(Draw::createUI);
     }
@@ -38,7 +63,9 @@ public class Draw {
         // ===== Load Model =====
         try {
             TrainedModel model = ModelIO.load("models/ann.bin");
-            neuralNetwork = model.network();
+            classifier = model.network().freeze().incremental();
+            scaler = model.scaler();
+            classifier.reset(blankInputs());
             labelEncoder = model.encoder();
         } catch (Exception e) {
             throw new RuntimeException("Failed to load model", e);
@@ -141,10 +168,13 @@ public class Draw {
                         if (dist <= radius) {
                             int value = (int) (255 * (1.0 - dist / radius));
                             int current = drawImage.getRaster().getSample(nx, ny, 0);
-                            drawImage.getRaster().setSample(
-                                    nx, ny, 0,
-                                    Math.min(255, current + value)
-                            );
+                            int updated = Math.min(255, current + value);
+                            if (updated != current) {
+                                drawImage.getRaster().setSample(nx, ny, 0, updated);
+                                int cell = (ny / BLOCK) * NN_SIZE + nx / BLOCK;
+                                cellSums[cell] += updated - current;
+                                dirtyCells.set(cell);
+                            }
                         }
                     }
                 }
@@ -160,7 +190,12 @@ public class Draw {
 
         JButton clearBtn = new JButton("Clear");
         clearBtn.addActionListener(e -> {
+            generation++;
+            redrawnSinceRequest = false;
             clearImage();
+            Arrays.fill(cellSums, 0);
+            dirtyCells.clear();
+            classifierThread.execute(() -> classifier.reset(blankInputs()));
             predictionLabel.setText("Draw something");
             drawPanel.repaint();
         });
@@ -177,37 +212,47 @@ public class Draw {
         frame.setVisible(true);
     }
 
-    // ===== Classification =====
-    private static void classify() {
-        double[] input = downsampleTo28();
-        int prediction = neuralNetwork.classify(input);
-        String label = labelEncoder.decode(prediction);
-        predictionLabel.setText("Prediction: " + label);
+    // NN inputs of an empty canvas, with the model's preprocessing applied like every update
+    private static double[] blankInputs() {
+        double[] inputs = new double[NN_SIZE * NN_SIZE];
+        return scaler != null ? scaler.transform(inputs) : inputs;
     }
 
-    // ===== Exact NN Input (No Resizing) =====
-    private static double[] downsampleTo28() {
-        double[] input = new double[NN_SIZE * NN_SIZE];
-
-        int block = DRAW_SIZE / NN_SIZE; // must be integer (e.g. 56/28 = 2)
-
-        for (int y = 0; y < NN_SIZE; y++) {
-            for (int x = 0; x < NN_SIZE; x++) {
-
-                int sum = 0;
-
-                for (int dy = 0; dy < block; dy++) {
-                    for (int dx = 0; dx < block; dx++) {
-                        int px = x * block + dx;
-                        int py = y * block + dy;
-                        sum += drawImage.getRaster().getSample(px, py, 0);
-                    }
-                }
+    // ===== Classification =====
+    // Never blocks the EDT: at most one request is in flight, and drags that arrive
+    // meanwhile only mark the drawing dirty, so a single request for the latest
+    // drawing follows once the answer comes back. A request carries only the NN
+    // inputs whose cells changed; the classifier folds them into the first layer.
+    private static void classify() {
+        if (requestInFlight) {
+            redrawnSinceRequest = true;
+            return;
+        }
+        requestInFlight = true;
+        redrawnSinceRequest = false;
+        int requestGeneration = generation;
+        int[] cells = dirtyCells.stream().toArray();
+        double[] values = new double[cells.length];
+        for (int i = 0; i < cells.length; i++) {
+            values[i] = (cellSums[cells[i]] / (double) (BLOCK * BLOCK)) / 255.0;
+        }
+        dirtyCells.clear();
 
-                input[y * NN_SIZE + x] = (sum / (double) (block * block)) / 255.0;
+        CompletableFuture.supplyAsync(() -> {
+            for (int i = 0; i < cells.length; i++) {
+                classifier.update(cells[i], scaler != null ? scaler.transform(cells[i], values[i]) : values[i]);
             }
-        }
-        return input;
+            return classifier.classify();
+        }, classifierThread).whenComplete((prediction, error) ->
+                SwingUtilities.invokeLater(() -> {
+                    requestInFlight = false;
+                    if (error == null && requestGeneration == generation) {
+                        predictionLabel.setText("Prediction: " + labelEncoder.decode(prediction));
+                    }
+                    if (redrawnSinceRequest) {
+                        classify();
+                    }
+                }));
     }
 
     private static void clearImage() {
@@ -1,10 +1,25 @@
 package Initialization;
 
-import java.util.Random;
+import utils.SeededRandom;
+
+import java.util.random.RandomGenerator;
 
 public class RandomUniform implements WeightInitializer {
 
-    private final Random random = new Random();
+    private final RandomGenerator random;
+
+    public RandomUniform() {
+        this(new SeededRandom());
+    }
+
+    // Same seed, same weights
+    public RandomUniform(long seed) {
+        this(new SeededRandom(seed));
+    }
+
+    public RandomUniform(RandomGenerator random) {
+        this.random = random;
+    }
 
     @Override
     public double[] init(int nInput, int nOutput) {
@@ -1,10 +1,24 @@
 package Initialization;
 
-import java.util.Random;
+import utils.SeededRandom;
+
+import java.util.random.RandomGenerator;
 
 public class Xavier implements WeightInitializer {
 
-    private final Random random = new Random();
+    private final RandomGenerator random;
+
+    public Xavier() {
+        this(new SeededRandom());
+    }
+
+    public Xavier(long seed) {
+        this(new SeededRandom(seed));
+    }
+
+    public Xavier(RandomGenerator random) {
+        this.random = random;
+    }
 
     @Override
     public double[] init(int nInput, int nOutput) {
@@ -0,0 +1,54 @@
+package Kernel;
+
+/**
+ * Picks the kernels once per JVM. The vector kernels are used when the
+ * {@code jdk.incubator.vector} module is loaded (run with
+ * {@code --add-modules jdk.incubator.vector}) and the CPU offers at least 256-bit
+ * vectors; otherwise the scalar kernels are used. The system property
+ * {@code ann.kernels=scalar|vector} overrides the choice.
+ */
+public final class KernelSelector {
+    private static final String VECTOR_MODULE = "jdk.incubator.vector";
+    private static final Kernels SCALAR = new ScalarKernels();
+    private static final Kernels ACTIVE = select();
+
+    private KernelSelector() {
+    }
+
+    public static Kernels active() {
+        return ACTIVE;
+    }
+
+    public static Kernels scalar() {
+        return SCALAR;
+    }
+
+    public static boolean vectorAvailable() {
+        return ModuleLayer.boot().findModule(VECTOR_MODULE).isPresent();
+    }
+
+    public static Kernels vector() {
+        if (!vectorAvailable()) {
+            throw new UnsupportedOperationException("Run with --add-modules " + VECTOR_MODULE + " to use vector kernels");
+        }
+        try {
+            // loaded reflectively so this class links without the incubator module
+            return (Kernels) Class.forName("Kernel.VectorKernels").getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            throw new UnsupportedOperationException("Vector kernels are not available", e);
+        }
+    }
+
+    private static Kernels select() {
+        String requested = System.getProperty("ann.kernels", "auto");
+        if (requested.equals("scalar") || !vectorAvailable()) {
+            return SCALAR;
+        }
+        try {
+            Kernels vector = vector();
+            return requested.equals("vector") || vector.doubleLanes() >= 4 ? vector : SCALAR;
+        } catch (UnsupportedOperationException e) {
+            return SCALAR;
+        }
+    }
+}
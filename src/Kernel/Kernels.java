@@ -0,0 +1,33 @@
+package Kernel;
+
+/**
+ * Inner loops of the network. Weight matrices use the {@code ANN.Layer} layout:
+ * {@code numNodesOut} rows of {@code numNodesIn} weights followed by the bias.
+ * Batches are row-major. Use {@link KernelSelector#active()} to get the best
+ * implementation for the running JVM.
+ */
+public interface Kernels {
+    // out[row][nodeOut] = inputs[row] . weights[nodeOut] + bias[nodeOut]
+    void weightedInputs(double[] inputs, int rows, int numNodesIn, double[] weights, int numNodesOut, double[] out);
+
+    // gradients[nodeOut] += sum over rows of deltas[row][nodeOut] * (inputs[row], 1)
+    void accumulateWeightGradients(double[] deltas, double[] inputs, int rows, int numNodesIn, int numNodesOut,
+                                   double[] gradients);
+
+    // out[row] = sum over nodeOut of deltas[row][nodeOut] * weights[nodeOut] (without the bias)
+    void propagateDeltas(double[] deltas, double[] weights, int rows, int numNodesIn, int numNodesOut, double[] out);
+
+    // weights -= scale * gradients, then gradients = 0
+    void applyGradients(double[] weights, double[] gradients, double scale);
+
+    // float32 version of weightedInputs, same weight layout
+    void weightedInputs(float[] inputs, int rows, int numNodesIn, float[] weights, int numNodesOut, float[] out);
+
+    // out[row][nodeOut] = inputs[row] . weights[nodeOut] in int32; weights have no bias column
+    void dotProducts(byte[] inputs, int rows, int numNodesIn, byte[] weights, int numNodesOut, int[] out);
+
+    // doubles processed per instruction, 1 for scalar code
+    default int doubleLanes() {
+        return 1;
+    }
+}
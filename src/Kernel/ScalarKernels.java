@@ -0,0 +1,233 @@
+package Kernel;
+
+import java.util.Arrays;
+
+// Plain Java loops, register-blocked so every load feeds several independent sums
+public final class ScalarKernels implements Kernels {
+
+    @Override
+    public void weightedInputs(double[] inputs, int rows, int numNodesIn, double[] weights, int numNodesOut,
+                               double[] out) {
+        int stride = numNodesIn + 1;
+        int row = 0;
+        // 4 samples x 2 neurons per step: every weight load feeds 4 samples
+        for (; row + 4 <= rows; row += 4) {
+            int in0 = row * numNodesIn;
+            int in1 = in0 + numNodesIn;
+            int in2 = in1 + numNodesIn;
+            int in3 = in2 + numNodesIn;
+            int nodeOut = 0;
+            for (; nodeOut + 2 <= numNodesOut; nodeOut += 2) {
+                int w0 = nodeOut * stride;
+                int w1 = w0 + stride;
+                double s00 = 0.0, s01 = 0.0, s10 = 0.0, s11 = 0.0;
+                double s20 = 0.0, s21 = 0.0, s30 = 0.0, s31 = 0.0;
+                for (int nodeIn = 0; nodeIn < numNodesIn; nodeIn++) {
+                    double a = weights[w0 + nodeIn];
+                    double b = weights[w1 + nodeIn];
+                    double x0 = inputs[in0 + nodeIn];
+                    double x1 = inputs[in1 + nodeIn];
+                    double x2 = inputs[in2 + nodeIn];
+                    double x3 = inputs[in3 + nodeIn];
+                    s00 += x0 * a;
+                    s01 += x0 * b;
+                    s10 += x1 * a;
+                    s11 += x1 * b;
+                    s20 += x2 * a;
+                    s21 += x2 * b;
+                    s30 += x3 * a;
+                    s31 += x3 * b;
+                }
+                double bias0 = weights[w0 + numNodesIn];
+                double bias1 = weights[w1 + numNodesIn];
+                int o = row * numNodesOut + nodeOut;
+                out[o] = s00 + bias0;
+                out[o + 1] = s01 + bias1;
+                o += numNodesOut;
+                out[o] = s10 + bias0;
+                out[o + 1] = s11 + bias1;
+                o += numNodesOut;
+                out[o] = s20 + bias0;
+                out[o + 1] = s21 + bias1;
+                o += numNodesOut;
+                out[o] = s30 + bias0;
+                out[o + 1] = s31 + bias1;
+            }
+            for (; nodeOut < numNodesOut; nodeOut++) {
+                for (int r = row; r < row + 4; r++) {
+                    out[r * numNodesOut + nodeOut] = weightedInput(inputs, r * numNodesIn, weights, nodeOut * stride, numNodesIn);
+                }
+            }
+        }
+        for (; row < rows; row++) {
+            for (int nodeOut = 0; nodeOut < numNodesOut; nodeOut++) {
+                out[row * numNodesOut + nodeOut] = weightedInput(inputs, row * numNodesIn, weights, nodeOut * stride, numNodesIn);
+            }
+        }
+    }
+
+    // Same summation order as the blocked loop, so batched and single-row results are bit-identical
+    private static double weightedInput(double[] inputs, int inBase, double[] weights, int base, int numNodesIn) {
+        double weightedInput = 0.0;
+        for (int nodeIn = 0; nodeIn < numNodesIn; nodeIn++) {
+            weightedInput += inputs[inBase + nodeIn] * weights[base + nodeIn];
+        }
+        return weightedInput + weights[base + numNodesIn]; // bias
+    }
+
+    // 4 samples per pass over a gradient row
+    @Override
+    public void accumulateWeightGradients(double[] deltas, double[] inputs, int rows, int numNodesIn, int numNodesOut,
+                                          double[] gradients) {
+        int stride = numNodesIn + 1;
+        for (int nodeOut = 0; nodeOut < numNodesOut; nodeOut++) {
+            int base = nodeOut * stride;
+            int row = 0;
+            for (; row + 4 <= rows; row += 4) {
+                double d0 = deltas[row * numNodesOut + nodeOut];
+                double d1 = deltas[(row + 1) * numNodesOut + nodeOut];
+                double d2 = deltas[(row + 2) * numNodesOut + nodeOut];
+                double d3 = deltas[(row + 3) * numNodesOut + nodeOut];
+                int in0 = row * numNodesIn;
+                int in1 = in0 + numNodesIn;
+                int in2 = in1 + numNodesIn;
+                int in3 = in2 + numNodesIn;
+                for (int nodeIn = 0; nodeIn < numNodesIn; nodeIn++) {
+                    gradients[base + nodeIn] += d0 * inputs[in0 + nodeIn] + d1 * inputs[in1 + nodeIn]
+                            + d2 * inputs[in2 + nodeIn] + d3 * inputs[in3 + nodeIn];
+                }
+                gradients[base + numNodesIn] += d0 + d1 + d2 + d3; // bias
+            }
+            for (; row < rows; row++) {
+                double delta = deltas[row * numNodesOut + nodeOut];
+                int in = row * numNodesIn;
+                for (int nodeIn = 0; nodeIn < numNodesIn; nodeIn++) {
+                    gradients[base + nodeIn] += delta * inputs[in + nodeIn];
+                }
+                gradients[base + numNodesIn] += delta; // bias
+            }
+        }
+    }
+
+    // 4 neurons per pass over a delta row
+    @Override
+    public void propagateDeltas(double[] deltas, double[] weights, int rows, int numNodesIn, int numNodesOut,
+                                double[] out) {
+        int stride = numNodesIn + 1;
+        for (int row = 0; row < rows; row++) {
+            int o = row * numNodesIn;
+            int d = row * numNodesOut;
+            Arrays.fill(out, o, o + numNodesIn, 0.0);
+            int nodeOut = 0;
+            for (; nodeOut + 4 <= numNodesOut; nodeOut += 4) {
+                double d0 = deltas[d + nodeOut];
+                double d1 = deltas[d + nodeOut + 1];
+                double d2 = deltas[d + nodeOut + 2];
+                double d3 = deltas[d + nodeOut + 3];
+                int w0 = nodeOut * stride;
+                int w1 = w0 + stride;
+                int w2 = w1 + stride;
+                int w3 = w2 + stride;
+                for (int nodeIn = 0; nodeIn < numNodesIn; nodeIn++) {
+                    out[o + nodeIn] += d0 * weights[w0 + nodeIn] + d1 * weights[w1 + nodeIn]
+                            + d2 * weights[w2 + nodeIn] + d3 * weights[w3 + nodeIn];
+                }
+            }
+            for (; nodeOut < numNodesOut; nodeOut++) {
+                double delta = deltas[d + nodeOut];
+                int base = nodeOut * stride;
+                for (int nodeIn = 0; nodeIn < numNodesIn; nodeIn++) {
+                    out[o + nodeIn] += delta * weights[base + nodeIn];
+                }
+            }
+        }
+    }
+
+    @Override
+    public void applyGradients(double[] weights, double[] gradients, double scale) {
+        for (int i = 0; i < weights.length; i++) {
+            weights[i] -= scale * gradients[i];
+            gradients[i] = 0.0;
+        }
+    }
+
+    @Override
+    public void weightedInputs(float[] inputs, int rows, int numNodesIn, float[] weights, int numNodesOut,
+                               float[] out) {
+        int stride = numNodesIn + 1;
+        int row = 0;
+        // independent sums for 4 rows share every weight load
+        for (; row + 4 <= rows; row += 4) {
+            int in0 = row * numNodesIn;
+            int in1 = in0 + numNodesIn;
+            int in2 = in1 + numNodesIn;
+            int in3 = in2 + numNodesIn;
+            for (int nodeOut = 0; nodeOut < numNodesOut; nodeOut++) {
+                int base = nodeOut * stride;
+                float s0 = 0.0f, s1 = 0.0f, s2 = 0.0f, s3 = 0.0f;
+                for (int nodeIn = 0; nodeIn < numNodesIn; nodeIn++) {
+                    float w = weights[base + nodeIn];
+                    s0 += inputs[in0 + nodeIn] * w;
+                    s1 += inputs[in1 + nodeIn] * w;
+                    s2 += inputs[in2 + nodeIn] * w;
+                    s3 += inputs[in3 + nodeIn] * w;
+                }
+                float bias = weights[base + numNodesIn];
+                int o = row * numNodesOut + nodeOut;
+                out[o] = s0 + bias;
+                out[o + numNodesOut] = s1 + bias;
+                out[o + 2 * numNodesOut] = s2 + bias;
+                out[o + 3 * numNodesOut] = s3 + bias;
+            }
+        }
+        for (; row < rows; row++) {
+            int in = row * numNodesIn;
+            for (int nodeOut = 0; nodeOut < numNodesOut; nodeOut++) {
+                int base = nodeOut * stride;
+                float weightedInput = 0.0f;
+                for (int nodeIn = 0; nodeIn < numNodesIn; nodeIn++) {
+                    weightedInput += inputs[in + nodeIn] * weights[base + nodeIn];
+                }
+                out[row * numNodesOut + nodeOut] = weightedInput + weights[base + numNodesIn];
+            }
+        }
+    }
+
+    @Override
+    public void dotProducts(byte[] inputs, int rows, int numNodesIn, byte[] weights, int numNodesOut, int[] out) {
+        int row = 0;
+        for (; row + 4 <= rows; row += 4) {
+            int in0 = row * numNodesIn;
+            int in1 = in0 + numNodesIn;
+            int in2 = in1 + numNodesIn;
+            int in3 = in2 + numNodesIn;
+            for (int nodeOut = 0; nodeOut < numNodesOut; nodeOut++) {
+                int base = nodeOut * numNodesIn;
+                int a0 = 0, a1 = 0, a2 = 0, a3 = 0;
+                for (int nodeIn = 0; nodeIn < numNodesIn; nodeIn++) {
+                    int w = weights[base + nodeIn];
+                    a0 += inputs[in0 + nodeIn] * w;
+                    a1 += inputs[in1 + nodeIn] * w;
+                    a2 += inputs[in2 + nodeIn] * w;
+                    a3 += inputs[in3 + nodeIn] * w;
+                }
+                int o = row * numNodesOut + nodeOut;
+                out[o] = a0;
+                out[o + numNodesOut] = a1;
+                out[o + 2 * numNodesOut] = a2;
+                out[o + 3 * numNodesOut] = a3;
+            }
+        }
+        for (; row < rows; row++) {
+            int in = row * numNodesIn;
+            for (int nodeOut = 0; nodeOut < numNodesOut; nodeOut++) {
+                int base = nodeOut * numNodesIn;
+                int accumulator = 0;
+                for (int nodeIn = 0; nodeIn < numNodesIn; nodeIn++) {
+                    accumulator += inputs[in + nodeIn] * weights[base + nodeIn];
+                }
+                out[row * numNodesOut + nodeOut] = accumulator;
+            }
+        }
+    }
+}
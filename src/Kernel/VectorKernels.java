@@ -0,0 +1,293 @@
+package Kernel;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+import java.util.Arrays;
+
+/**
+ * SIMD kernels on the incubating Vector API, using the preferred species of the
+ * CPU (4 doubles on AVX2, 8 on AVX-512). Needs
+ * {@code --add-modules jdk.incubator.vector}; load it through
+ * {@link KernelSelector} so the scalar kernels take over without the module.
+ * <p>
+ * Every weighted input is one lane-wise accumulation followed by the same lane
+ * reduction, so a row gives the same result whether it is computed alone or
+ * inside a block, just like the scalar kernels.
+ */
+public final class VectorKernels implements Kernels {
+    private static final VectorSpecies<Double> D = DoubleVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Float> F = FloatVector.SPECIES_PREFERRED;
+    // int8 lanes are widened to int, so the byte species carries as many lanes as the int species
+    private static final VectorSpecies<Integer> I =
+            IntVector.SPECIES_PREFERRED.length() >= 8 ? IntVector.SPECIES_PREFERRED : IntVector.SPECIES_256;
+    private static final VectorSpecies<Byte> B =
+            VectorSpecies.of(byte.class, VectorShape.forBitSize(I.length() * Byte.SIZE));
+
+    @Override
+    public void weightedInputs(double[] inputs, int rows, int numNodesIn, double[] weights, int numNodesOut,
+                               double[] out) {
+        int stride = numNodesIn + 1;
+        int row = 0;
+        // 4 samples x 2 neurons per step: every weight vector feeds 4 samples
+        for (; row + 4 <= rows; row += 4) {
+            int in0 = row * numNodesIn;
+            int in1 = in0 + numNodesIn;
+            int in2 = in1 + numNodesIn;
+            int in3 = in2 + numNodesIn;
+            int nodeOut = 0;
+            for (; nodeOut + 2 <= numNodesOut; nodeOut += 2) {
+                int w0 = nodeOut * stride;
+                int w1 = w0 + stride;
+                DoubleVector s00 = DoubleVector.zero(D), s01 = DoubleVector.zero(D);
+                DoubleVector s10 = DoubleVector.zero(D), s11 = DoubleVector.zero(D);
+                DoubleVector s20 = DoubleVector.zero(D), s21 = DoubleVector.zero(D);
+                DoubleVector s30 = DoubleVector.zero(D), s31 = DoubleVector.zero(D);
+                int upper = D.loopBound(numNodesIn);
+                for (int nodeIn = 0; nodeIn < upper; nodeIn += D.length()) {
+                    DoubleVector a = DoubleVector.fromArray(D, weights, w0 + nodeIn);
+                    DoubleVector b = DoubleVector.fromArray(D, weights, w1 + nodeIn);
+                    DoubleVector x0 = DoubleVector.fromArray(D, inputs, in0 + nodeIn);
+                    DoubleVector x1 = DoubleVector.fromArray(D, inputs, in1 + nodeIn);
+                    DoubleVector x2 = DoubleVector.fromArray(D, inputs, in2 + nodeIn);
+                    DoubleVector x3 = DoubleVector.fromArray(D, inputs, in3 + nodeIn);
+                    s00 = x0.fma(a, s00);
+                    s01 = x0.fma(b, s01);
+                    s10 = x1.fma(a, s10);
+                    s11 = x1.fma(b, s11);
+                    s20 = x2.fma(a, s20);
+                    s21 = x2.fma(b, s21);
+                    s30 = x3.fma(a, s30);
+                    s31 = x3.fma(b, s31);
+                }
+                int o = row * numNodesOut + nodeOut;
+                out[o] = finish(s00, inputs, in0, weights, w0, upper, numNodesIn);
+                out[o + 1] = finish(s01, inputs, in0, weights, w1, upper, numNodesIn);
+                o += numNodesOut;
+                out[o] = finish(s10, inputs, in1, weights, w0, upper, numNodesIn);
+                out[o + 1] = finish(s11, inputs, in1, weights, w1, upper, numNodesIn);
+                o += numNodesOut;
+                out[o] = finish(s20, inputs, in2, weights, w0, upper, numNodesIn);
+                out[o + 1] = finish(s21, inputs, in2, weights, w1, upper, numNodesIn);
+                o += numNodesOut;
+                out[o] = finish(s30, inputs, in3, weights, w0, upper, numNodesIn);
+                out[o + 1] = finish(s31, inputs, in3, weights, w1, upper, numNodesIn);
+            }
+            for (; nodeOut < numNodesOut; nodeOut++) {
+                for (int r = row; r < row + 4; r++) {
+                    out[r * numNodesOut + nodeOut] = weightedInput(inputs, r * numNodesIn, weights, nodeOut * stride, numNodesIn);
+                }
+            }
+        }
+        for (; row < rows; row++) {
+            for (int nodeOut = 0; nodeOut < numNodesOut; nodeOut++) {
+                out[row * numNodesOut + nodeOut] = weightedInput(inputs, row * numNodesIn, weights, nodeOut * stride, numNodesIn);
+            }
+        }
+    }
+
+    private static double weightedInput(double[] inputs, int inBase, double[] weights, int base, int numNodesIn) {
+        DoubleVector sum = DoubleVector.zero(D);
+        int upper = D.loopBound(numNodesIn);
+        for (int nodeIn = 0; nodeIn < upper; nodeIn += D.length()) {
+            DoubleVector x = DoubleVector.fromArray(D, inputs, inBase + nodeIn);
+            sum = x.fma(DoubleVector.fromArray(D, weights, base + nodeIn), sum);
+        }
+        return finish(sum, inputs, inBase, weights, base, upper, numNodesIn);
+    }
+
+    // Folds the lanes, adds the scalar tail from upper and then the bias
+    private static double finish(DoubleVector sum, double[] inputs, int inBase, double[] weights, int base,
+                                 int upper, int numNodesIn) {
+        double weightedInput = sum.reduceLanes(VectorOperators.ADD);
+        for (int nodeIn = upper; nodeIn < numNodesIn; nodeIn++) {
+            weightedInput += inputs[inBase + nodeIn] * weights[base + nodeIn];
+        }
+        return weightedInput + weights[base + numNodesIn]; // bias
+    }
+
+    @Override
+    public void accumulateWeightGradients(double[] deltas, double[] inputs, int rows, int numNodesIn, int numNodesOut,
+                                          double[] gradients) {
+        int stride = numNodesIn + 1;
+        int upper = D.loopBound(numNodesIn);
+        for (int nodeOut = 0; nodeOut < numNodesOut; nodeOut++) {
+            int base = nodeOut * stride;
+            int row = 0;
+            for (; row + 4 <= rows; row += 4) {
+                double d0 = deltas[row * numNodesOut + nodeOut];
+                double d1 = deltas[(row + 1) * numNodesOut + nodeOut];
+                double d2 = deltas[(row + 2) * numNodesOut + nodeOut];
+                double d3 = deltas[(row + 3) * numNodesOut + nodeOut];
+                DoubleVector v0 = DoubleVector.broadcast(D, d0);
+                DoubleVector v1 = DoubleVector.broadcast(D, d1);
+                DoubleVector v2 = DoubleVector.broadcast(D, d2);
+                DoubleVector v3 = DoubleVector.broadcast(D, d3);
+                int in0 = row * numNodesIn;
+                int in1 = in0 + numNodesIn;
+                int in2 = in1 + numNodesIn;
+                int in3 = in2 + numNodesIn;
+                int nodeIn = 0;
+                for (; nodeIn < upper; nodeIn += D.length()) {
+                    DoubleVector g = DoubleVector.fromArray(D, gradients, base + nodeIn);
+                    g = DoubleVector.fromArray(D, inputs, in0 + nodeIn).fma(v0, g);
+                    g = DoubleVector.fromArray(D, inputs, in1 + nodeIn).fma(v1, g);
+                    g = DoubleVector.fromArray(D, inputs, in2 + nodeIn).fma(v2, g);
+                    g = DoubleVector.fromArray(D, inputs, in3 + nodeIn).fma(v3, g);
+                    g.intoArray(gradients, base + nodeIn);
+                }
+                for (; nodeIn < numNodesIn; nodeIn++) {
+                    gradients[base + nodeIn] += d0 * inputs[in0 + nodeIn] + d1 * inputs[in1 + nodeIn]
+                            + d2 * inputs[in2 + nodeIn] + d3 * inputs[in3 + nodeIn];
+                }
+                gradients[base + numNodesIn] += d0 + d1 + d2 + d3; // bias
+            }
+            for (; row < rows; row++) {
+                double delta = deltas[row * numNodesOut + nodeOut];
+                DoubleVector deltaVector = DoubleVector.broadcast(D, delta);
+                int in = row * numNodesIn;
+                int nodeIn = 0;
+                for (; nodeIn < upper; nodeIn += D.length()) {
+                    DoubleVector g = DoubleVector.fromArray(D, gradients, base + nodeIn);
+                    DoubleVector.fromArray(D, inputs, in + nodeIn).fma(deltaVector, g).intoArray(gradients, base + nodeIn);
+                }
+                for (; nodeIn < numNodesIn; nodeIn++) {
+                    gradients[base + nodeIn] += delta * inputs[in + nodeIn];
+                }
+                gradients[base + numNodesIn] += delta; // bias
+            }
+        }
+    }
+
+    @Override
+    public void propagateDeltas(double[] deltas, double[] weights, int rows, int numNodesIn, int numNodesOut,
+                                double[] out) {
+        int stride = numNodesIn + 1;
+        int upper = D.loopBound(numNodesIn);
+        for (int row = 0; row < rows; row++) {
+            int o = row * numNodesIn;
+            int d = row * numNodesOut;
+            Arrays.fill(out, o, o + numNodesIn, 0.0);
+            int nodeOut = 0;
+            for (; nodeOut + 4 <= numNodesOut; nodeOut += 4) {
+                double d0 = deltas[d + nodeOut];
+                double d1 = deltas[d + nodeOut + 1];
+                double d2 = deltas[d + nodeOut + 2];
+                double d3 = deltas[d + nodeOut + 3];
+                DoubleVector v0 = DoubleVector.broadcast(D, d0);
+                DoubleVector v1 = DoubleVector.broadcast(D, d1);
+                DoubleVector v2 = DoubleVector.broadcast(D, d2);
+                DoubleVector v3 = DoubleVector.broadcast(D, d3);
+                int w0 = nodeOut * stride;
+                int w1 = w0 + stride;
+                int w2 = w1 + stride;
+                int w3 = w2 + stride;
+                int nodeIn = 0;
+                for (; nodeIn < upper; nodeIn += D.length()) {
+                    DoubleVector sum = DoubleVector.fromArray(D, out, o + nodeIn);
+                    sum = DoubleVector.fromArray(D, weights, w0 + nodeIn).fma(v0, sum);
+                    sum = DoubleVector.fromArray(D, weights, w1 + nodeIn).fma(v1, sum);
+                    sum = DoubleVector.fromArray(D, weights, w2 + nodeIn).fma(v2, sum);
+                    sum = DoubleVector.fromArray(D, weights, w3 + nodeIn).fma(v3, sum);
+                    sum.intoArray(out, o + nodeIn);
+                }
+                for (; nodeIn < numNodesIn; nodeIn++) {
+                    out[o + nodeIn] += d0 * weights[w0 + nodeIn] + d1 * weights[w1 + nodeIn]
+                            + d2 * weights[w2 + nodeIn] + d3 * weights[w3 + nodeIn];
+                }
+            }
+            for (; nodeOut < numNodesOut; nodeOut++) {
+                double delta = deltas[d + nodeOut];
+                DoubleVector deltaVector = DoubleVector.broadcast(D, delta);
+                int base = nodeOut * stride;
+                int nodeIn = 0;
+                for (; nodeIn < upper; nodeIn += D.length()) {
+                    DoubleVector sum = DoubleVector.fromArray(D, out, o + nodeIn);
+                    DoubleVector.fromArray(D, weights, base + nodeIn).fma(deltaVector, sum).intoArray(out, o + nodeIn);
+                }
+                for (; nodeIn < numNodesIn; nodeIn++) {
+                    out[o + nodeIn] += delta * weights[base + nodeIn];
+                }
+            }
+        }
+    }
+
+    @Override
+    public void applyGradients(double[] weights, double[] gradients, double scale) {
+        int upper = D.loopBound(weights.length);
+        int i = 0;
+        for (; i < upper; i += D.length()) {
+            DoubleVector w = DoubleVector.fromArray(D, weights, i);
+            DoubleVector g = DoubleVector.fromArray(D, gradients, i);
+            w.sub(g.mul(scale)).intoArray(weights, i);
+        }
+        for (; i < weights.length; i++) {
+            weights[i] -= scale * gradients[i];
+        }
+        Arrays.fill(gradients, 0.0);
+    }
+
+    @Override
+    public void weightedInputs(float[] inputs, int rows, int numNodesIn, float[] weights, int numNodesOut,
+                               float[] out) {
+        int stride = numNodesIn + 1;
+        for (int row = 0; row < rows; row++) {
+            for (int nodeOut = 0; nodeOut < numNodesOut; nodeOut++) {
+                int base = nodeOut * stride;
+                out[row * numNodesOut + nodeOut] =
+                        dot(inputs, row * numNodesIn, weights, base, numNodesIn) + weights[base + numNodesIn];
+            }
+        }
+    }
+
+    @Override
+    public void dotProducts(byte[] inputs, int rows, int numNodesIn, byte[] weights, int numNodesOut, int[] out) {
+        for (int row = 0; row < rows; row++) {
+            for (int nodeOut = 0; nodeOut < numNodesOut; nodeOut++) {
+                out[row * numNodesOut + nodeOut] =
+                        dot(inputs, row * numNodesIn, weights, nodeOut * numNodesIn, numNodesIn);
+            }
+        }
+    }
+
+    private static float dot(float[] a, int aOffset, float[] b, int bOffset, int length) {
+        FloatVector sum = FloatVector.zero(F);
+        int upper = F.loopBound(length);
+        int i = 0;
+        for (; i < upper; i += F.length()) {
+            sum = FloatVector.fromArray(F, a, aOffset + i).fma(FloatVector.fromArray(F, b, bOffset + i), sum);
+        }
+        float result = sum.reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++) {
+            result += a[aOffset + i] * b[bOffset + i];
+        }
+        return result;
+    }
+
+    // int8 products widened to int32 lanes
+    private static int dot(byte[] a, int aOffset, byte[] b, int bOffset, int length) {
+        IntVector sum = IntVector.zero(I);
+        int upper = B.loopBound(length);
+        int i = 0;
+        for (; i < upper; i += B.length()) {
+            IntVector x = (IntVector) ByteVector.fromArray(B, a, aOffset + i).convertShape(VectorOperators.B2I, I, 0);
+            IntVector y = (IntVector) ByteVector.fromArray(B, b, bOffset + i).convertShape(VectorOperators.B2I, I, 0);
+            sum = x.mul(y).add(sum);
+        }
+        int result = sum.reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++) {
+            result += a[aOffset + i] * b[bOffset + i];
+        }
+        return result;
+    }
+
+    @Override
+    public int doubleLanes() {
+        return D.length();
+    }
+}
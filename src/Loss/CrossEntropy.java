@@ -1,5 +1,9 @@
 package Loss;
 
+import Activation.ActivationFunction;
+import Activation.Sigmoid;
+import Activation.Softmax;
+
 public class CrossEntropy implements LossFunction {
 
     private static final double EPSILON = 1e-15;
@@ -15,12 +19,52 @@ public class CrossEntropy implements LossFunction {
         return loss;
     }
 
+    // Only the target class contributes to the sum
+    @Override
+    public double calculateLoss(double[] predictedOutputs, int offset, int length, int label) {
+        return -Math.log(clamp(predictedOutputs[offset + label]));
+    }
+
     @Override
     public double derivative(double predictedOutput, double expectedOutput) {
         predictedOutput = clamp(predictedOutput);
         return -(expectedOutput / predictedOutput);
     }
 
+    /*
+     * Fused with the output activation where the chain rule collapses: softmax
+     * gives p - y with the loss taken from the log-sum-exp of the weighted
+     * inputs, and sigmoid gives p - 1 on the target and 0 elsewhere. Both skip
+     * the division by p and the separate activation-derivative pass.
+     */
+    @Override
+    public double outputDeltas(ActivationFunction activationFunction, double[] weightedInputs, double[] outputs,
+                               int[] labels, int rows, int width, double[] deltas) {
+        boolean softmax = activationFunction instanceof Softmax;
+        if (!softmax && !(activationFunction instanceof Sigmoid)) {
+            return LossFunction.super.outputDeltas(activationFunction, weightedInputs, outputs, labels, rows, width,
+                    deltas);
+        }
+        double loss = 0.0;
+        for (int row = 0; row < rows; row++) {
+            int base = row * width;
+            int target = base + labels[row];
+            if (softmax) {
+                for (int i = base; i < base + width; i++) {
+                    deltas[i] = outputs[i];
+                }
+                loss += Softmax.logSumExp(weightedInputs, base, width) - weightedInputs[target];
+            } else {
+                for (int i = base; i < base + width; i++) {
+                    deltas[i] = 0.0;
+                }
+                loss -= Math.log(clamp(outputs[target]));
+            }
+            deltas[target] = outputs[target] - 1.0;
+        }
+        return loss;
+    }
+
     private double clamp(double value) {
         return Math.max(EPSILON, Math.min(1.0 - EPSILON, value));
     }
@@ -1,7 +1,50 @@
 package Loss;
 
+import Activation.ActivationFunction;
+
 public interface LossFunction {
     double calculateLoss(double[] predictedOutputs, double[] expectedOutputs);
 
     double derivative(double predictedOutput, double expectedOutput);
+
+    /**
+     * Loss of the {@code length} outputs at {@code offset} against the one-hot
+     * target of {@code label}, without building the target. The default
+     * allocates; implementations used for training should override it.
+     */
+    default double calculateLoss(double[] predictedOutputs, int offset, int length, int label) {
+        double[] predicted = new double[length];
+        System.arraycopy(predictedOutputs, offset, predicted, 0, length);
+        double[] expected = new double[length];
+        expected[label] = 1.0;
+        return calculateLoss(predicted, expected);
+    }
+
+    // Derivatives of the same outputs against the one-hot target of label, written to gradients at gradientOffset
+    default void derivatives(double[] predictedOutputs, int offset, int length, int label,
+                             double[] gradients, int gradientOffset) {
+        for (int i = 0; i < length; i++) {
+            gradients[gradientOffset + i] = derivative(predictedOutputs[offset + i], i == label ? 1.0 : 0.0);
+        }
+    }
+
+    /**
+     * Output stage of a training batch: writes the gradients of the loss w.r.t.
+     * the weighted inputs of an output layer using {@code activationFunction}
+     * ({@code rows} rows of {@code width} values, row-major) to {@code deltas}
+     * and returns the loss summed over the rows. The default chains
+     * {@link #derivatives} with {@link ActivationFunction#backpropagate};
+     * losses can override it with a fused form for a given activation.
+     */
+    default double outputDeltas(ActivationFunction activationFunction, double[] weightedInputs, double[] outputs,
+                                int[] labels, int rows, int width, double[] deltas) {
+        double loss = 0.0;
+        for (int row = 0; row < rows; row++) {
+            int base = row * width;
+            derivatives(outputs, base, width, labels[row], deltas, base);
+            loss += calculateLoss(outputs, base, width, labels[row]);
+        }
+        activationFunction.backpropagate(weightedInputs, outputs, deltas, rows, width);
+        return loss;
+    }
 }
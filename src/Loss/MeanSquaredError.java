@@ -15,4 +15,14 @@ public class MeanSquaredError implements LossFunction {
     public double derivative(double predictedOutput, double expectedOutput) {
         return predictedOutput - expectedOutput;
     }
+
+    @Override
+    public double calculateLoss(double[] predictedOutputs, int offset, int length, int label) {
+        double loss = 0;
+        for (int i = 0; i < length; i++) {
+            double error = predictedOutputs[offset + i] - (i == label ? 1.0 : 0.0);
+            loss += error * error;
+        }
+        return 0.5 * loss;
+    }
 }
@@ -0,0 +1,101 @@
+package Optimization;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * Adam with bias-corrected first and second moments. A non-zero
+ * {@code weightDecay} is applied decoupled from the gradient
+ * (w -= learningRate * weightDecay * w), as in AdamW; biases decay too.
+ */
+public class Adam implements Optimizer {
+    private final double beta1;
+    private final double beta2;
+    private final double epsilon;
+    private final double weightDecay;
+    private double[][] moments;
+    private double[][] squares;
+    private long step;
+    // bias corrections 1 / (1 - beta^step) of the current step
+    private double correction1;
+    private double correction2;
+
+    public Adam() {
+        this(0.9, 0.999, 1e-8, 0.0);
+    }
+
+    public Adam(double beta1, double beta2, double epsilon, double weightDecay) {
+        if (beta1 < 0.0 || beta1 >= 1.0 || beta2 < 0.0 || beta2 >= 1.0) {
+            throw new IllegalArgumentException("Betas must be in [0, 1)");
+        }
+        if (weightDecay < 0.0) {
+            throw new IllegalArgumentException("Weight decay can't be negative");
+        }
+        this.beta1 = beta1;
+        this.beta2 = beta2;
+        this.epsilon = epsilon;
+        this.weightDecay = weightDecay;
+    }
+
+    @Override
+    public void initialize(int[] parameterCounts) {
+        double[][] resized = OptimizerState.resize(moments, parameterCounts);
+        if (resized != moments) {
+            moments = resized;
+            squares = OptimizerState.resize(null, parameterCounts);
+            step = 0;
+        }
+    }
+
+    @Override
+    public void beginStep() {
+        step++;
+        correction1 = 1.0 / (1.0 - Math.pow(beta1, step));
+        correction2 = 1.0 / (1.0 - Math.pow(beta2, step));
+    }
+
+    @Override
+    public Serializable snapshot() {
+        return new State(OptimizerState.copy(moments), OptimizerState.copy(squares), step);
+    }
+
+    // The bias corrections are recomputed by the next beginStep()
+    @Override
+    public void restore(Serializable snapshot) {
+        if (!(snapshot instanceof State state)) {
+            throw OptimizerState.mismatch();
+        }
+        moments = OptimizerState.copy(state.moments);
+        squares = OptimizerState.copy(state.squares);
+        step = state.step;
+    }
+
+    @Override
+    public void update(int layer, double[] weights, double[] gradients, double learningRate, int batchSize) {
+        double[] m = moments[layer];
+        double[] v = squares[layer];
+        double scale = 1.0 / batchSize;
+        double b1 = beta1;
+        double b2 = beta2;
+        double oneMinusB1 = 1.0 - beta1;
+        double oneMinusB2 = 1.0 - beta2;
+        double stepSize = learningRate * correction1;
+        double c2 = correction2;
+        double eps = epsilon;
+        double decay = 1.0 - learningRate * weightDecay;
+        for (int i = 0; i < weights.length; i++) {
+            double g = gradients[i] * scale;
+            double moment = b1 * m[i] + oneMinusB1 * g;
+            double square = b2 * v[i] + oneMinusB2 * g * g;
+            m[i] = moment;
+            v[i] = square;
+            weights[i] = weights[i] * decay - stepSize * moment / (Math.sqrt(square * c2) + eps);
+            gradients[i] = 0.0;
+        }
+    }
+
+    private record State(double[][] moments, double[][] squares, long step) implements Serializable {
+        @Serial
+        private static final long serialVersionUID = 1L;
+    }
+}
@@ -0,0 +1,12 @@
+package Optimization;
+
+// Adam with decoupled weight decay and the usual default betas
+public class AdamW extends Adam {
+    public AdamW() {
+        this(0.01);
+    }
+
+    public AdamW(double weightDecay) {
+        super(0.9, 0.999, 1e-8, weightDecay);
+    }
+}
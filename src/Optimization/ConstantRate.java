@@ -0,0 +1,8 @@
+package Optimization;
+
+public class ConstantRate implements LearningRateSchedule {
+    @Override
+    public double learningRate(double baseRate, double epoch, int totalEpochs) {
+        return baseRate;
+    }
+}
@@ -0,0 +1,21 @@
+package Optimization;
+
+// Anneals the rate from baseRate to minFactor * baseRate along half a cosine over the whole run
+public class CosineDecay implements LearningRateSchedule {
+    private final double minFactor;
+
+    public CosineDecay() {
+        this(0.0);
+    }
+
+    public CosineDecay(double minFactor) {
+        this.minFactor = minFactor;
+    }
+
+    @Override
+    public double learningRate(double baseRate, double epoch, int totalEpochs) {
+        double progress = Math.min(1.0, epoch / Math.max(totalEpochs, 1));
+        double cosine = 0.5 * (1.0 + Math.cos(Math.PI * progress));
+        return baseRate * (minFactor + (1.0 - minFactor) * cosine);
+    }
+}
@@ -0,0 +1,11 @@
+package Optimization;
+
+/**
+ * Learning rate for each mini-batch of a training run. {@code epoch} counts
+ * fractional epochs from 0: the batch starting halfway through the third
+ * epoch sees 2.5.
+ */
+@FunctionalInterface
+public interface LearningRateSchedule {
+    double learningRate(double baseRate, double epoch, int totalEpochs);
+}
@@ -0,0 +1,72 @@
+package Optimization;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * Gradient descent with a velocity per weight: v = momentum * v - learningRate * g,
+ * then w += v, or w += momentum * v - learningRate * g with Nesterov momentum.
+ */
+public class Momentum implements Optimizer {
+    private final double momentum;
+    private final boolean nesterov;
+    private double[][] velocities;
+
+    public Momentum() {
+        this(0.9, true);
+    }
+
+    public Momentum(double momentum, boolean nesterov) {
+        if (momentum < 0.0 || momentum >= 1.0) {
+            throw new IllegalArgumentException("Momentum must be in [0, 1)");
+        }
+        this.momentum = momentum;
+        this.nesterov = nesterov;
+    }
+
+    @Override
+    public void initialize(int[] parameterCounts) {
+        velocities = OptimizerState.resize(velocities, parameterCounts);
+    }
+
+    @Override
+    public Serializable snapshot() {
+        return new State(OptimizerState.copy(velocities));
+    }
+
+    @Override
+    public void restore(Serializable snapshot) {
+        if (!(snapshot instanceof State state)) {
+            throw OptimizerState.mismatch();
+        }
+        velocities = OptimizerState.copy(state.velocities);
+    }
+
+    @Override
+    public void update(int layer, double[] weights, double[] gradients, double learningRate, int batchSize) {
+        double[] v = velocities[layer];
+        double step = learningRate / batchSize;
+        double mu = momentum;
+        if (nesterov) {
+            for (int i = 0; i < weights.length; i++) {
+                double g = step * gradients[i];
+                double velocity = mu * v[i] - g;
+                v[i] = velocity;
+                weights[i] += mu * velocity - g;
+                gradients[i] = 0.0;
+            }
+        } else {
+            for (int i = 0; i < weights.length; i++) {
+                double velocity = mu * v[i] - step * gradients[i];
+                v[i] = velocity;
+                weights[i] += velocity;
+                gradients[i] = 0.0;
+            }
+        }
+    }
+
+    private record State(double[][] velocities) implements Serializable {
+        @Serial
+        private static final long serialVersionUID = 1L;
+    }
+}
@@ -0,0 +1,36 @@
+package Optimization;
+
+import java.io.Serializable;
+
+/**
+ * Updates the weights of every layer from its accumulated mini-batch gradients.
+ * Optimizers with per-parameter state (moments, velocities) keep it in one flat
+ * array per layer, laid out like the layer's weights, and update weights and
+ * state together in a single pass that also clears the gradients.
+ */
+public interface Optimizer {
+    // Sizes the per-parameter state; existing state is kept when the sizes are unchanged
+    void initialize(int[] parameterCounts);
+
+    // Called once per mini-batch, before the updates of its layers
+    default void beginStep() {
+    }
+
+    /**
+     * Applies the summed gradients of {@code batchSize} rows to the weights of
+     * layer {@code layer} and resets the gradients to zero.
+     */
+    void update(int layer, double[] weights, double[] gradients, double learningRate, int batchSize);
+
+    // Copy of the per-parameter state for a checkpoint, or null if the optimizer keeps none
+    default Serializable snapshot() {
+        return null;
+    }
+
+    // Replaces the state with a copy of one taken by snapshot() on an optimizer of the same kind
+    default void restore(Serializable snapshot) {
+        if (snapshot != null) {
+            throw new IllegalArgumentException("Optimizer state doesn't match the optimizer");
+        }
+    }
+}
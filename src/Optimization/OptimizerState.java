@@ -0,0 +1,41 @@
+package Optimization;
+
+// Flat per-parameter state shared by the stateful optimizers
+final class OptimizerState {
+    private OptimizerState() {
+    }
+
+    // Returns state unchanged if it already matches the counts, otherwise zeroed arrays of the new sizes
+    static double[][] resize(double[][] state, int[] parameterCounts) {
+        if (state != null && state.length == parameterCounts.length) {
+            boolean matches = true;
+            for (int l = 0; l < state.length; l++) {
+                matches &= state[l].length == parameterCounts[l];
+            }
+            if (matches) {
+                return state;
+            }
+        }
+        double[][] result = new double[parameterCounts.length][];
+        for (int l = 0; l < result.length; l++) {
+            result[l] = new double[parameterCounts[l]];
+        }
+        return result;
+    }
+
+    // Deep copy for checkpoints; null stays null
+    static double[][] copy(double[][] state) {
+        if (state == null) {
+            return null;
+        }
+        double[][] result = new double[state.length][];
+        for (int l = 0; l < state.length; l++) {
+            result[l] = state[l].clone();
+        }
+        return result;
+    }
+
+    static IllegalArgumentException mismatch() {
+        return new IllegalArgumentException("Optimizer state doesn't match the optimizer");
+    }
+}
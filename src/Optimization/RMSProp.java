@@ -0,0 +1,62 @@
+package Optimization;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+// Scales every step by a running root mean square of its gradients: s = decay * s + (1 - decay) * g^2
+public class RMSProp implements Optimizer {
+    private final double decay;
+    private final double epsilon;
+    private double[][] squares;
+
+    public RMSProp() {
+        this(0.9, 1e-8);
+    }
+
+    public RMSProp(double decay, double epsilon) {
+        if (decay < 0.0 || decay >= 1.0) {
+            throw new IllegalArgumentException("Decay must be in [0, 1)");
+        }
+        this.decay = decay;
+        this.epsilon = epsilon;
+    }
+
+    @Override
+    public void initialize(int[] parameterCounts) {
+        squares = OptimizerState.resize(squares, parameterCounts);
+    }
+
+    @Override
+    public Serializable snapshot() {
+        return new State(OptimizerState.copy(squares));
+    }
+
+    @Override
+    public void restore(Serializable snapshot) {
+        if (!(snapshot instanceof State state)) {
+            throw OptimizerState.mismatch();
+        }
+        squares = OptimizerState.copy(state.squares);
+    }
+
+    @Override
+    public void update(int layer, double[] weights, double[] gradients, double learningRate, int batchSize) {
+        double[] s = squares[layer];
+        double scale = 1.0 / batchSize;
+        double rho = decay;
+        double oneMinusRho = 1.0 - decay;
+        double eps = epsilon;
+        for (int i = 0; i < weights.length; i++) {
+            double g = gradients[i] * scale;
+            double square = rho * s[i] + oneMinusRho * g * g;
+            s[i] = square;
+            weights[i] -= learningRate * g / (Math.sqrt(square) + eps);
+            gradients[i] = 0.0;
+        }
+    }
+
+    private record State(double[][] squares) implements Serializable {
+        @Serial
+        private static final long serialVersionUID = 1L;
+    }
+}
@@ -0,0 +1,18 @@
+package Optimization;
+
+import Kernel.KernelSelector;
+import Kernel.Kernels;
+
+// Plain mini-batch gradient descent: w -= learningRate * g
+public class SGD implements Optimizer {
+    private static final Kernels KERNELS = KernelSelector.active();
+
+    @Override
+    public void initialize(int[] parameterCounts) {
+    }
+
+    @Override
+    public void update(int layer, double[] weights, double[] gradients, double learningRate, int batchSize) {
+        KERNELS.applyGradients(weights, gradients, learningRate / batchSize);
+    }
+}
@@ -0,0 +1,20 @@
+package Optimization;
+
+// Multiplies the rate by factor every epochsPerStep whole epochs
+public class StepDecay implements LearningRateSchedule {
+    private final int epochsPerStep;
+    private final double factor;
+
+    public StepDecay(int epochsPerStep, double factor) {
+        if (epochsPerStep < 1) {
+            throw new IllegalArgumentException("Epochs per step can't be less than 1");
+        }
+        this.epochsPerStep = epochsPerStep;
+        this.factor = factor;
+    }
+
+    @Override
+    public double learningRate(double baseRate, double epoch, int totalEpochs) {
+        return baseRate * Math.pow(factor, Math.floor(epoch / epochsPerStep));
+    }
+}
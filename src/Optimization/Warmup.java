@@ -0,0 +1,34 @@
+package Optimization;
+
+/**
+ * Ramps the rate linearly from startFactor times the scheduled rate up to the
+ * scheduled rate over the first warmupEpochs (fractional) epochs, then follows
+ * the wrapped schedule.
+ */
+public class Warmup implements LearningRateSchedule {
+    private final double warmupEpochs;
+    private final double startFactor;
+    private final LearningRateSchedule schedule;
+
+    public Warmup(double warmupEpochs, LearningRateSchedule schedule) {
+        this(warmupEpochs, 0.1, schedule);
+    }
+
+    public Warmup(double warmupEpochs, double startFactor, LearningRateSchedule schedule) {
+        if (warmupEpochs <= 0.0) {
+            throw new IllegalArgumentException("Warmup epochs must be positive");
+        }
+        this.warmupEpochs = warmupEpochs;
+        this.startFactor = startFactor;
+        this.schedule = schedule;
+    }
+
+    @Override
+    public double learningRate(double baseRate, double epoch, int totalEpochs) {
+        double rate = schedule.learningRate(baseRate, epoch, totalEpochs);
+        if (epoch >= warmupEpochs) {
+            return rate;
+        }
+        return rate * (startFactor + (1.0 - startFactor) * epoch / warmupEpochs);
+    }
+}
@@ -1,5 +1,6 @@
 import ANN.NeuralNetwork;
 import Data.Dataset;
+import Data.StorageType;
 import utils.ImageUtils;
 import utils.LabelEncoder;
 import utils.ModelIO;
@@ -16,12 +17,16 @@ public class PredictMain {
         NeuralNetwork nn = model.network();
         LabelEncoder encoder = model.encoder();
 
-        Dataset testSet = loadDataset("testing", encoder, 100);
-        double accuracy = nn.evaluateAccuracy(testSet.inputs, testSet.labels);
+        Dataset testSet = loadDataset("testing", encoder, 100, "cache");
+        if (model.scaler() != null) {
+            testSet = testSet.convert(StorageType.DOUBLE, false);
+            model.scaler().transform(testSet);
+        }
+        double accuracy = nn.evaluateAccuracy(testSet);
         System.out.println("Accuracy: " + accuracy);
 
         File testImage = new File("testing/hand/image_50.png");
-        double[] input = ImageUtils.readGrayscaleNormalized(testImage);
+        double[] input = model.preprocess(ImageUtils.readGrayscaleNormalized(testImage));
         int labelIndex = nn.classify(input);
         String label = encoder.decode(labelIndex);
 
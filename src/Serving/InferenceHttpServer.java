@@ -0,0 +1,95 @@
+package Serving;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import utils.LabelEncoder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Minimal HTTP front end for an {@link InferenceServer}, bound to the loopback
+ * interface. {@code POST /classify} takes one row of features as text,
+ * separated by commas or whitespace, and answers with the class index, plus a
+ * tab and its label when an encoder is given. Requests are answered
+ * asynchronously, so concurrent clients end up in the same micro-batches.
+ */
+public final class InferenceHttpServer implements AutoCloseable {
+    private final InferenceServer server;
+    private final LabelEncoder encoder;
+    private final HttpServer http;
+
+    public InferenceHttpServer(InferenceServer server, LabelEncoder encoder, int port) throws IOException {
+        this.server = server;
+        this.encoder = encoder;
+        http = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        http.createContext("/classify", this::handle);
+        http.start();
+    }
+
+    // Bound port, useful when created with port 0
+    public int port() {
+        return http.getAddress().getPort();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        if (!exchange.getRequestMethod().equals("POST")) {
+            respond(exchange, 405, "Use POST\n");
+            return;
+        }
+        double[] inputs;
+        try (InputStream body = exchange.getRequestBody()) {
+            inputs = parse(new String(body.readAllBytes(), StandardCharsets.UTF_8));
+            server.classify(inputs).whenComplete((prediction, error) -> {
+                try {
+                    if (error == null) {
+                        String label = encoder == null ? "" : "\t" + encoder.decode(prediction);
+                        respond(exchange, 200, prediction + label + "\n");
+                    } else {
+                        Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+                        int status = cause instanceof RejectedExecutionException ? 503 : 500;
+                        respond(exchange, status, cause.getMessage() + "\n");
+                    }
+                } catch (IOException e) {
+                    exchange.close();
+                }
+            });
+        } catch (IllegalArgumentException e) {
+            respond(exchange, 400, e.getMessage() + "\n");
+        }
+    }
+
+    private static double[] parse(String body) {
+        String trimmed = body.trim();
+        if (trimmed.isEmpty()) {
+            throw new IllegalArgumentException("Empty request body");
+        }
+        String[] values = trimmed.split("[,\\s]+");
+        double[] inputs = new double[values.length];
+        for (int i = 0; i < values.length; i++) {
+            inputs[i] = Double.parseDouble(values[i]);
+        }
+        return inputs;
+    }
+
+    private static void respond(HttpExchange exchange, int status, String text) throws IOException {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    // Stops accepting connections; the inference server stays open
+    @Override
+    public void close() {
+        http.stop(0);
+    }
+}
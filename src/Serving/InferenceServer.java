@@ -0,0 +1,171 @@
+package Serving;
+
+import ANN.InferenceContext;
+import ANN.Predictor;
+import Data.DataHandler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-process inference service over a {@link Predictor}. Requests go into a
+ * bounded queue; each worker thread takes the oldest request and keeps
+ * collecting more until it has {@code maxBatchSize} of them or the oldest has
+ * waited {@code maxDelayMicros}, then classifies the whole micro-batch in one
+ * batched forward pass and completes the futures. With the default delay of 0
+ * a batch is whatever queued up while the previous one ran, so batches grow
+ * with the load and an idle server answers at once; a positive delay trades
+ * latency for fuller batches when there are more clients than the batch size.
+ */
+public final class InferenceServer implements AutoCloseable {
+    private final Predictor predictor;
+    private final int maxBatchSize;
+    private final long maxDelayNanos;
+    private final BlockingQueue<Request> queue;
+    private final List<Thread> workers = new ArrayList<>();
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private volatile boolean closed;
+
+    public InferenceServer(Predictor predictor) {
+        this(predictor, 32, 0, 1, 1024);
+    }
+
+    public InferenceServer(Predictor predictor, int maxBatchSize, long maxDelayMicros, int workerThreads,
+                           int queueCapacity) {
+        if (maxBatchSize < 1 || workerThreads < 1 || queueCapacity < 1) {
+            throw new IllegalArgumentException("Batch size, worker threads and queue capacity must be at least 1");
+        }
+        if (maxDelayMicros < 0) {
+            throw new IllegalArgumentException("Batch delay can't be negative");
+        }
+        this.predictor = predictor;
+        this.maxBatchSize = maxBatchSize;
+        this.maxDelayNanos = TimeUnit.MICROSECONDS.toNanos(maxDelayMicros);
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        for (int i = 0; i < workerThreads; i++) {
+            Thread worker = new Thread(this::serve, "inference-worker-" + i);
+            worker.setDaemon(true);
+            workers.add(worker);
+            worker.start();
+        }
+    }
+
+    /**
+     * Queues one row for classification; the inputs are copied. Invalid rows
+     * are rejected right away. The future fails with
+     * {@link RejectedExecutionException} if the queue is full or the server is
+     * closed.
+     */
+    public CompletableFuture<Integer> classify(double[] inputs) {
+        DataHandler.validateInputRow(inputs);
+        if (inputs.length != predictor.numFeatures()) {
+            throw new IllegalArgumentException("Number of features doesn't match the ANN");
+        }
+        CompletableFuture<Integer> future = new CompletableFuture<>();
+        Request request = new Request(inputs.clone(), future);
+        if (closed || !queue.offer(request)) {
+            future.completeExceptionally(new RejectedExecutionException(
+                    closed ? "Inference server is closed" : "Inference queue is full"));
+        } else if (closed && queue.remove(request)) {
+            // lost a race with close() after the workers stopped
+            future.completeExceptionally(new RejectedExecutionException("Inference server is closed"));
+        }
+        return future;
+    }
+
+    // Requests classified so far
+    public long requests() {
+        return requests.sum();
+    }
+
+    // Micro-batches run so far; requests() / batches() is the mean batch size
+    public long batches() {
+        return batches.sum();
+    }
+
+    public Predictor predictor() {
+        return predictor;
+    }
+
+    // Stops the workers after their current batch and fails every request still queued
+    @Override
+    public void close() {
+        closed = true;
+        for (Thread worker : workers) {
+            worker.interrupt();
+        }
+        for (Thread worker : workers) {
+            try {
+                worker.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        Request request;
+        while ((request = queue.poll()) != null) {
+            request.future.completeExceptionally(new RejectedExecutionException("Inference server is closed"));
+        }
+    }
+
+    private void serve() {
+        int numFeatures = predictor.numFeatures();
+        InferenceContext context = predictor.newContext(maxBatchSize);
+        double[] inputs = new double[maxBatchSize * numFeatures];
+        int[] predictions = new int[maxBatchSize];
+        Request[] batch = new Request[maxBatchSize];
+
+        while (!closed) {
+            int size = 0;
+            try {
+                Request first = queue.take();
+                batch[size++] = first;
+                long deadline = System.nanoTime() + maxDelayNanos;
+                while (size < maxBatchSize) {
+                    Request next = queue.poll();
+                    if (next == null) {
+                        long remaining = deadline - System.nanoTime();
+                        if (remaining <= 0 || (next = queue.poll(remaining, TimeUnit.NANOSECONDS)) == null) {
+                            break;
+                        }
+                    }
+                    batch[size++] = next;
+                }
+            } catch (InterruptedException e) {
+                // closing; the requests taken so far still get their answers
+                if (size == 0) {
+                    return;
+                }
+            }
+
+            for (int r = 0; r < size; r++) {
+                System.arraycopy(batch[r].inputs, 0, inputs, r * numFeatures, numFeatures);
+            }
+            try {
+                predictor.classifyBatch(inputs, size, context, predictions);
+                for (int r = 0; r < size; r++) {
+                    batch[r].future.complete(predictions[r]);
+                }
+            } catch (RuntimeException e) {
+                for (int r = 0; r < size; r++) {
+                    batch[r].future.completeExceptionally(e);
+                }
+            }
+            requests.add(size);
+            batches.increment();
+            for (int r = 0; r < size; r++) {
+                batch[r] = null;
+            }
+        }
+    }
+
+    private record Request(double[] inputs, CompletableFuture<Integer> future) {
+    }
+}
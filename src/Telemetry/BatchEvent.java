@@ -0,0 +1,45 @@
+package Telemetry;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+@Name("ann.TrainingBatch")
+@Label("Training Batch")
+@Category({"ANN", "Training"})
+@Description("One mini-batch of NeuralNetwork.train")
+final class BatchEvent extends jdk.jfr.Event {
+    @Label("Epoch")
+    int epoch;
+
+    @Label("Rows")
+    int rows;
+
+    @Label("Data")
+    @Timespan
+    long dataNanos;
+
+    @Label("Forward")
+    @Timespan
+    long forwardNanos;
+
+    @Label("Backward")
+    @Timespan
+    long backwardNanos;
+
+    @Label("Update")
+    @Timespan
+    long updateNanos;
+
+    @Label("Latency")
+    @Timespan
+    long latencyNanos;
+
+    @Label("Loss")
+    double loss;
+
+    @Label("Gradient Norm")
+    double gradientNorm;
+}
@@ -0,0 +1,57 @@
+package Telemetry;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+@Name("ann.TrainingEpoch")
+@Label("Training Epoch")
+@Category({"ANN", "Training"})
+@Description("Totals of one epoch of NeuralNetwork.train")
+final class EpochEvent extends jdk.jfr.Event {
+    @Label("Epoch")
+    int epoch;
+
+    @Label("Samples")
+    long samples;
+
+    @Label("Samples per Second")
+    double samplesPerSecond;
+
+    @Label("Data")
+    @Timespan
+    long dataNanos;
+
+    @Label("Forward")
+    @Timespan
+    long forwardNanos;
+
+    @Label("Backward")
+    @Timespan
+    long backwardNanos;
+
+    @Label("Update")
+    @Timespan
+    long updateNanos;
+
+    @Label("Validation")
+    @Timespan
+    long validationNanos;
+
+    @Label("Batch Latency p99")
+    @Timespan
+    long batchLatencyP99Nanos;
+
+    @Label("Mean Gradient Norm")
+    double meanGradientNorm;
+
+    @Label("GC Count")
+    long gcCount;
+
+    @Label("Allocated")
+    @DataAmount
+    long allocatedBytes;
+}
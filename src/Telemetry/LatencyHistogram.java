@@ -0,0 +1,66 @@
+package Telemetry;
+
+import java.util.Arrays;
+
+/*
+ * Fixed-size log-linear histogram of nanosecond latencies: every power of two
+ * is split into 8 buckets, so percentiles are within 12.5% of the true value.
+ * Recording never allocates.
+ */
+final class LatencyHistogram {
+    private static final int SUB_BUCKETS = 8;
+    private final long[] counts = new long[64 * SUB_BUCKETS];
+    private long total;
+    private long max;
+
+    void record(long nanos) {
+        long value = Math.max(nanos, 0L);
+        counts[index(value)]++;
+        total++;
+        max = Math.max(max, value);
+    }
+
+    // Upper bound of the bucket holding the given quantile, e.g. 0.99
+    long percentile(double quantile) {
+        if (total == 0) {
+            return 0L;
+        }
+        long rank = Math.max(1L, (long) Math.ceil(quantile * total));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(upperBound(i), max);
+            }
+        }
+        return max;
+    }
+
+    long max() {
+        return max;
+    }
+
+    void reset() {
+        Arrays.fill(counts, 0L);
+        total = 0;
+        max = 0;
+    }
+
+    private static int index(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (exponent - 3)) & (SUB_BUCKETS - 1);
+        return (exponent - 2) * SUB_BUCKETS + sub;
+    }
+
+    private static long upperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int exponent = index / SUB_BUCKETS + 2;
+        int sub = index % SUB_BUCKETS;
+        return ((long) (SUB_BUCKETS + sub + 1) << (exponent - 3)) - 1;
+    }
+}
@@ -0,0 +1,15 @@
+package Telemetry;
+
+// Parts of a training epoch timed by TrainingTelemetry
+public enum Phase {
+    // waiting for BatchSource.next
+    DATA,
+    // layer forward passes, summed over the shards of each batch
+    FORWARD,
+    // loss, deltas and gradients, summed over the shards of each batch
+    BACKWARD,
+    // optimizer updates
+    UPDATE,
+    // validation pass after the epoch
+    VALIDATION
+}
@@ -0,0 +1,79 @@
+package Telemetry;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.RecordComponent;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Serves the last epoch of a {@link TrainingTelemetry} over HTTP, bound to the
+ * loopback interface, for scrapers that can't speak JMX. {@code GET /telemetry}
+ * answers with one {@code name<TAB>value} line per {@link TelemetrySnapshot}
+ * component, or 204 before the first epoch has ended.
+ */
+public final class TelemetryHttpServer implements AutoCloseable {
+    private final TrainingTelemetry telemetry;
+    private final HttpServer http;
+
+    public TelemetryHttpServer(TrainingTelemetry telemetry, int port) throws IOException {
+        if (telemetry == null) {
+            throw new IllegalArgumentException("Telemetry must not be null");
+        }
+        this.telemetry = telemetry;
+        http = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        http.createContext("/telemetry", this::handle);
+        http.start();
+    }
+
+    // Bound port, useful when created with port 0
+    public int port() {
+        return http.getAddress().getPort();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        if (!exchange.getRequestMethod().equals("GET")) {
+            respond(exchange, 405, "Use GET\n");
+            return;
+        }
+        TelemetrySnapshot snapshot = telemetry.lastSnapshot();
+        if (snapshot == null) {
+            exchange.sendResponseHeaders(204, -1);
+            exchange.close();
+            return;
+        }
+        respond(exchange, 200, format(snapshot));
+    }
+
+    static String format(TelemetrySnapshot snapshot) {
+        StringBuilder text = new StringBuilder();
+        try {
+            for (RecordComponent component : TelemetrySnapshot.class.getRecordComponents()) {
+                text.append(component.getName()).append('\t')
+                        .append(component.getAccessor().invoke(snapshot)).append('\n');
+            }
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+        return text.toString();
+    }
+
+    private static void respond(HttpExchange exchange, int status, String text) throws IOException {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    // Stops accepting connections; telemetry keeps recording
+    @Override
+    public void close() {
+        http.stop(0);
+    }
+}
@@ -0,0 +1,7 @@
+package Telemetry;
+
+// Receives the telemetry of every epoch, on the training thread
+@FunctionalInterface
+public interface TelemetryListener {
+    void onEpoch(TelemetrySnapshot snapshot);
+}
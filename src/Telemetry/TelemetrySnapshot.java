@@ -0,0 +1,26 @@
+package Telemetry;
+
+/**
+ * Telemetry of one training epoch. Phase times are in nanoseconds; forward and
+ * backward are summed over the shards of every batch, so with several threads
+ * they add up to more than the wall-clock epoch time. Gradient norms are L2
+ * norms of the batch-mean gradient over all layers. GC figures cover the whole
+ * JVM; allocated bytes cover the training thread and the pool workers that ran
+ * its shards, or are -1 if the JVM can't tell.
+ */
+public record TelemetrySnapshot(int epoch, long epochNanos, long dataNanos, long forwardNanos,
+                                long backwardNanos, long updateNanos, long validationNanos, int batches,
+                                long samples, double samplesPerSecond, long batchLatencyP50Nanos,
+                                long batchLatencyP99Nanos, long batchLatencyMaxNanos, double meanGradientNorm,
+                                double maxGradientNorm, long gcCount, long gcTimeMillis, long allocatedBytes) {
+
+    public long phaseNanos(Phase phase) {
+        return switch (phase) {
+            case DATA -> dataNanos;
+            case FORWARD -> forwardNanos;
+            case BACKWARD -> backwardNanos;
+            case UPDATE -> updateNanos;
+            case VALIDATION -> validationNanos;
+        };
+    }
+}
@@ -0,0 +1,313 @@
+package Telemetry;
+
+import jdk.jfr.EventType;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Per-phase timings, batch latencies, gradient norms and GC/allocation
+ * counters of a training run, fed by {@code NeuralNetwork.train} once set with
+ * {@code setTelemetry}. Every epoch ends in a {@link TelemetrySnapshot} that
+ * goes to the listener, to the JMX bean if registered, and to JFR as an
+ * {@code ann.TrainingEpoch} event; with {@code ann.TrainingBatch} enabled in a
+ * recording, every batch becomes an event too. Recording a batch does not
+ * allocate. Without telemetry set, training only pays for a few null checks.
+ * Not thread-safe: use one instance per training thread. Only
+ * {@link #trackWorker} may be called from other threads.
+ */
+public final class TrainingTelemetry implements TrainingTelemetryMXBean {
+    private static final EventType BATCH_EVENT = EventType.getEventType(BatchEvent.class);
+    private static final EventType EPOCH_EVENT = EventType.getEventType(EpochEvent.class);
+
+    private final TelemetryListener listener;
+    private final LatencyHistogram batchLatencies = new LatencyHistogram();
+    private final List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    private final long[] phaseNanos = new long[Phase.values().length];
+    private volatile TelemetrySnapshot last;
+    private ObjectName objectName;
+
+    private int epoch;
+    private long epochStart;
+    private int batches;
+    private long samples;
+    private double gradientNormSum;
+    private double maxGradientNorm;
+    private long gcCountStart;
+    private long gcTimeStart;
+    private long allocatedStart;
+    private long trainingThread;
+    // threads that ran shards for this run, copy-on-write so known workers are found without locking
+    private volatile long[] workerIds = new long[0];
+    private long[] workerStart = new long[0];
+
+    public TrainingTelemetry() {
+        this(null);
+    }
+
+    public TrainingTelemetry(TelemetryListener listener) {
+        this.listener = listener;
+    }
+
+    public void startEpoch(int epoch) {
+        this.epoch = epoch;
+        batches = 0;
+        samples = 0;
+        gradientNormSum = 0.0;
+        maxGradientNorm = 0.0;
+        batchLatencies.reset();
+        for (int i = 0; i < phaseNanos.length; i++) {
+            phaseNanos[i] = 0L;
+        }
+        gcCountStart = gcCount();
+        gcTimeStart = gcTimeMillis();
+        trainingThread = Thread.currentThread().getId();
+        synchronized (this) {
+            for (int i = 0; i < workerIds.length; i++) {
+                workerStart[i] = allocatedBytes(workerIds[i]);
+            }
+            allocatedStart = allocatedBytes(trainingThread);
+        }
+        epochStart = System.nanoTime();
+    }
+
+    public void recordBatch(int rows, long dataNanos, long forwardNanos, long backwardNanos, long updateNanos,
+                            long latencyNanos, double gradientNorm, double loss) {
+        phaseNanos[Phase.DATA.ordinal()] += dataNanos;
+        phaseNanos[Phase.FORWARD.ordinal()] += forwardNanos;
+        phaseNanos[Phase.BACKWARD.ordinal()] += backwardNanos;
+        phaseNanos[Phase.UPDATE.ordinal()] += updateNanos;
+        batchLatencies.record(latencyNanos);
+        batches++;
+        samples += rows;
+        gradientNormSum += gradientNorm;
+        maxGradientNorm = Math.max(maxGradientNorm, gradientNorm);
+
+        if (BATCH_EVENT.isEnabled()) {
+            BatchEvent event = new BatchEvent();
+            event.epoch = epoch;
+            event.rows = rows;
+            event.dataNanos = dataNanos;
+            event.forwardNanos = forwardNanos;
+            event.backwardNanos = backwardNanos;
+            event.updateNanos = updateNanos;
+            event.latencyNanos = latencyNanos;
+            event.loss = loss;
+            event.gradientNorm = gradientNorm;
+            event.commit();
+        }
+    }
+
+    /**
+     * Counts the calling thread's allocations towards this epoch's
+     * {@code allocatedBytes}, from the first call on. Called by the worker
+     * threads that run training shards; only allocates the first time a
+     * thread shows up. Shared pool workers count everything they allocate,
+     * including work for other callers in the meantime.
+     */
+    public void trackWorker() {
+        long id = Thread.currentThread().getId();
+        if (id == trainingThread) {
+            return;
+        }
+        for (long known : workerIds) {
+            if (known == id) {
+                return;
+            }
+        }
+        synchronized (this) {
+            long[] ids = workerIds;
+            for (long known : ids) {
+                if (known == id) {
+                    return;
+                }
+            }
+            long[] grown = Arrays.copyOf(ids, ids.length + 1);
+            grown[ids.length] = id;
+            workerStart = Arrays.copyOf(workerStart, grown.length);
+            workerStart[ids.length] = allocatedBytes(id);
+            workerIds = grown;
+        }
+    }
+
+    public void record(Phase phase, long nanos) {
+        phaseNanos[phase.ordinal()] += nanos;
+    }
+
+    public TelemetrySnapshot endEpoch() {
+        long epochNanos = System.nanoTime() - epochStart;
+        long allocated = allocatedSinceStart();
+        TelemetrySnapshot snapshot = new TelemetrySnapshot(epoch, epochNanos,
+                phaseNanos[Phase.DATA.ordinal()], phaseNanos[Phase.FORWARD.ordinal()],
+                phaseNanos[Phase.BACKWARD.ordinal()], phaseNanos[Phase.UPDATE.ordinal()],
+                phaseNanos[Phase.VALIDATION.ordinal()], batches, samples,
+                samples * 1e9 / Math.max(epochNanos, 1L),
+                batchLatencies.percentile(0.5), batchLatencies.percentile(0.99), batchLatencies.max(),
+                batches == 0 ? 0.0 : gradientNormSum / batches, maxGradientNorm,
+                gcCount() - gcCountStart, gcTimeMillis() - gcTimeStart,
+                allocated);
+        last = snapshot;
+
+        if (EPOCH_EVENT.isEnabled()) {
+            EpochEvent event = new EpochEvent();
+            event.epoch = snapshot.epoch();
+            event.samples = snapshot.samples();
+            event.samplesPerSecond = snapshot.samplesPerSecond();
+            event.dataNanos = snapshot.dataNanos();
+            event.forwardNanos = snapshot.forwardNanos();
+            event.backwardNanos = snapshot.backwardNanos();
+            event.updateNanos = snapshot.updateNanos();
+            event.validationNanos = snapshot.validationNanos();
+            event.batchLatencyP99Nanos = snapshot.batchLatencyP99Nanos();
+            event.meanGradientNorm = snapshot.meanGradientNorm();
+            event.gcCount = snapshot.gcCount();
+            event.allocatedBytes = snapshot.allocatedBytes();
+            event.commit();
+        }
+        if (listener != null) {
+            listener.onEpoch(snapshot);
+        }
+        return snapshot;
+    }
+
+    // Last completed epoch, or null before the first one
+    public TelemetrySnapshot lastSnapshot() {
+        return last;
+    }
+
+    // Exposes the last epoch as ANN:type=TrainingTelemetry,name=<name> on the platform MBean server
+    public void registerMBean(String name) throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName objectName = new ObjectName("ANN:type=TrainingTelemetry,name=" + ObjectName.quote(name));
+        server.registerMBean(this, objectName);
+        this.objectName = objectName;
+    }
+
+    public void unregisterMBean() throws JMException {
+        if (objectName != null) {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+            objectName = null;
+        }
+    }
+
+    private long gcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean collector : collectors) {
+            count += Math.max(collector.getCollectionCount(), 0L);
+        }
+        return count;
+    }
+
+    private long gcTimeMillis() {
+        long time = 0;
+        for (GarbageCollectorMXBean collector : collectors) {
+            time += Math.max(collector.getCollectionTime(), 0L);
+        }
+        return time;
+    }
+
+    // Bytes allocated by the training thread and the tracked workers since startEpoch, or -1 if unknown
+    private synchronized long allocatedSinceStart() {
+        long end = allocatedBytes(trainingThread);
+        if (end < 0 || allocatedStart < 0) {
+            return -1L;
+        }
+        long total = end - allocatedStart;
+        for (int i = 0; i < workerIds.length; i++) {
+            long workerEnd = allocatedBytes(workerIds[i]);
+            // a worker that exited since is no longer counted
+            if (workerEnd >= 0 && workerStart[i] >= 0) {
+                total += workerEnd - workerStart[i];
+            }
+        }
+        return total;
+    }
+
+    // -1 if the JVM can't tell or the thread has exited
+    private long allocatedBytes(long threadId) {
+        if (threads instanceof com.sun.management.ThreadMXBean sunThreads
+                && sunThreads.isThreadAllocatedMemorySupported() && sunThreads.isThreadAllocatedMemoryEnabled()) {
+            return sunThreads.getThreadAllocatedBytes(threadId);
+        }
+        return -1L;
+    }
+
+    @Override
+    public int getEpoch() {
+        TelemetrySnapshot snapshot = last;
+        return snapshot == null ? 0 : snapshot.epoch();
+    }
+
+    @Override
+    public double getSamplesPerSecond() {
+        TelemetrySnapshot snapshot = last;
+        return snapshot == null ? 0.0 : snapshot.samplesPerSecond();
+    }
+
+    @Override
+    public long getDataNanos() {
+        TelemetrySnapshot snapshot = last;
+        return snapshot == null ? 0L : snapshot.dataNanos();
+    }
+
+    @Override
+    public long getForwardNanos() {
+        TelemetrySnapshot snapshot = last;
+        return snapshot == null ? 0L : snapshot.forwardNanos();
+    }
+
+    @Override
+    public long getBackwardNanos() {
+        TelemetrySnapshot snapshot = last;
+        return snapshot == null ? 0L : snapshot.backwardNanos();
+    }
+
+    @Override
+    public long getUpdateNanos() {
+        TelemetrySnapshot snapshot = last;
+        return snapshot == null ? 0L : snapshot.updateNanos();
+    }
+
+    @Override
+    public long getValidationNanos() {
+        TelemetrySnapshot snapshot = last;
+        return snapshot == null ? 0L : snapshot.validationNanos();
+    }
+
+    @Override
+    public long getBatchLatencyP50Nanos() {
+        TelemetrySnapshot snapshot = last;
+        return snapshot == null ? 0L : snapshot.batchLatencyP50Nanos();
+    }
+
+    @Override
+    public long getBatchLatencyP99Nanos() {
+        TelemetrySnapshot snapshot = last;
+        return snapshot == null ? 0L : snapshot.batchLatencyP99Nanos();
+    }
+
+    @Override
+    public double getMeanGradientNorm() {
+        TelemetrySnapshot snapshot = last;
+        return snapshot == null ? 0.0 : snapshot.meanGradientNorm();
+    }
+
+    @Override
+    public long getGcCount() {
+        TelemetrySnapshot snapshot = last;
+        return snapshot == null ? 0L : snapshot.gcCount();
+    }
+
+    @Override
+    public long getAllocatedBytes() {
+        TelemetrySnapshot snapshot = last;
+        return snapshot == null ? 0L : snapshot.allocatedBytes();
+    }
+}
@@ -0,0 +1,28 @@
+package Telemetry;
+
+// JMX view of the last completed epoch, registered by TrainingTelemetry.registerMBean
+public interface TrainingTelemetryMXBean {
+    int getEpoch();
+
+    double getSamplesPerSecond();
+
+    long getDataNanos();
+
+    long getForwardNanos();
+
+    long getBackwardNanos();
+
+    long getUpdateNanos();
+
+    long getValidationNanos();
+
+    long getBatchLatencyP50Nanos();
+
+    long getBatchLatencyP99Nanos();
+
+    double getMeanGradientNorm();
+
+    long getGcCount();
+
+    long getAllocatedBytes();
+}
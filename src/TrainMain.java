@@ -21,24 +21,24 @@ public class TrainMain {
         NeuralNetwork nn = new NeuralNetwork(new int[]{IMAGE_SIZE * IMAGE_SIZE, 50, 25, NUM_CLASSES});
 
         // Load training data
-        Dataset dataset = loadDataset("images", encoder, 1000);
+        Dataset dataset = loadDataset("images", encoder, 1000, "cache");
 
-        System.out.println("Loaded " + dataset.inputs.length + " training samples");
+        System.out.println("Loaded " + dataset.rows() + " training samples");
 
         Dataset[] splitDataset = DataHandler.splitData(dataset, 0.8);
 
         System.out.println("Data split into:");
-        System.out.printf("%d training data\n", splitDataset[0].inputs.length);
-        System.out.printf("%d testing data\n", splitDataset[1].inputs.length);
+        System.out.printf("%d training data\n", splitDataset[0].rows());
+        System.out.printf("%d testing data\n", splitDataset[1].rows());
 
         nn.setBatchSize(50);
         nn.setEpochs(50);
         nn.setLearningRate(0.5);
 
         // Train
-        nn.train(splitDataset[0].inputs, splitDataset[0].labels);
+        nn.train(splitDataset[0]);
 
-        double accuracy = nn.evaluateAccuracy(splitDataset[1].inputs, splitDataset[1].labels);
+        double accuracy = nn.evaluateAccuracy(splitDataset[1]);
 
         System.out.println("Test Data Accuracy: " + accuracy);
 
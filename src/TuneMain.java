@@ -0,0 +1,49 @@
+import Data.DataHandler;
+import Data.Dataset;
+import Data.ValidatedDataset;
+import Tuning.HyperparameterSearch;
+import Tuning.SearchSpace;
+import Tuning.TrialResult;
+import utils.LabelEncoder;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import static utils.ImageUtils.loadDataset;
+
+public class TuneMain {
+
+    // Usage: TuneMain [hyperband|grid|random]
+    public static void main(String[] args) throws IOException {
+        final LabelEncoder encoder = new LabelEncoder();
+        final long SEED = 42;
+
+        // Load the images once; every trial trains on the same uint8 rows
+        Dataset dataset = loadDataset("images", encoder, 1000, "cache");
+        Dataset[] splitDataset = DataHandler.splitData(dataset, 0.8, SEED);
+        ValidatedDataset training = ValidatedDataset.of(splitDataset[0]);
+        ValidatedDataset validation = ValidatedDataset.of(splitDataset[1]);
+
+        SearchSpace space = new SearchSpace();
+        space.setHiddenLayers(new int[]{50, 25}, new int[]{100, 50}, new int[]{128}, new int[]{256, 64});
+        space.setBatchSizes(25, 50, 100);
+        space.setLearningRates(0.1, 0.5, 1.0);
+        space.setLearningRateRange(0.05, 1.0);
+        space.setOptimizers("sgd", "momentum");
+
+        HyperparameterSearch search = new HyperparameterSearch(training, validation, encoder.numClasses());
+        search.setSeed(SEED);
+
+        String mode = args.length > 0 ? args[0] : "hyperband";
+        List<TrialResult> results = switch (mode) {
+            case "grid" -> search.grid(space, 10);
+            case "random" -> search.random(space, 20, 10);
+            case "hyperband" -> search.hyperband(space, 27, 3);
+            default -> throw new IllegalArgumentException("Unknown search: " + mode);
+        };
+
+        System.out.print(HyperparameterSearch.table(results));
+        HyperparameterSearch.writeCsv(Path.of("search-results.csv"), results);
+    }
+}
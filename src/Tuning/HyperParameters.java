@@ -0,0 +1,96 @@
+package Tuning;
+
+import ANN.NeuralNetwork;
+import Activation.Sigmoid;
+import Initialization.RandomUniform;
+import Optimization.Adam;
+import Optimization.AdamW;
+import Optimization.Momentum;
+import Optimization.Optimizer;
+import Optimization.RMSProp;
+import Optimization.SGD;
+
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+/**
+ * One configuration tried by a {@link HyperparameterSearch}. The number of
+ * epochs is not part of it; the search decides how long each configuration
+ * trains. {@code optimizer} is one of sgd, momentum, rmsprop, adam or adamw.
+ */
+public record HyperParameters(int[] hiddenLayers, int batchSize, double learningRate, String optimizer) {
+
+    public HyperParameters {
+        for (int size : hiddenLayers) {
+            if (size < 1) {
+                throw new IllegalArgumentException("Number of neurons can't be less than 1");
+            }
+        }
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size can't be less than 1");
+        }
+        if (!(learningRate > 0.0)) {
+            throw new IllegalArgumentException("Learning rate must be positive");
+        }
+        newOptimizer(optimizer);
+        hiddenLayers = hiddenLayers.clone();
+    }
+
+    @Override
+    public int[] hiddenLayers() {
+        return hiddenLayers.clone();
+    }
+
+    public int[] layerSizes(int numFeatures, int numClasses) {
+        int[] layerSizes = new int[hiddenLayers.length + 2];
+        layerSizes[0] = numFeatures;
+        System.arraycopy(hiddenLayers, 0, layerSizes, 1, hiddenLayers.length);
+        layerSizes[layerSizes.length - 1] = numClasses;
+        return layerSizes;
+    }
+
+    // Weights and row orders only depend on the seed
+    public NeuralNetwork build(int numFeatures, int numClasses, long seed) {
+        NeuralNetwork network = new NeuralNetwork(layerSizes(numFeatures, numClasses), new RandomUniform(seed),
+                new Sigmoid());
+        network.setSeed(seed);
+        network.setBatchSize(batchSize);
+        network.setLearningRate(learningRate);
+        network.setOptimizer(newOptimizer(optimizer));
+        return network;
+    }
+
+    static Optimizer newOptimizer(String name) {
+        return switch (name) {
+            case "sgd" -> new SGD();
+            case "momentum" -> new Momentum();
+            case "rmsprop" -> new RMSProp();
+            case "adam" -> new Adam();
+            case "adamw" -> new AdamW();
+            default -> throw new IllegalArgumentException("Unknown optimizer: " + name);
+        };
+    }
+
+    // Hidden layer sizes joined with '-', e.g. 50-25
+    public String hiddenLayersName() {
+        return Arrays.stream(hiddenLayers).mapToObj(Integer::toString).collect(Collectors.joining("-"));
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof HyperParameters that && Arrays.equals(hiddenLayers, that.hiddenLayers)
+                && batchSize == that.batchSize && Double.compare(learningRate, that.learningRate) == 0
+                && optimizer.equals(that.optimizer);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * (31 * Arrays.hashCode(hiddenLayers) + batchSize) + Double.hashCode(learningRate))
+                + optimizer.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "hidden " + hiddenLayersName() + ", batch " + batchSize + ", rate " + learningRate + ", " + optimizer;
+    }
+}
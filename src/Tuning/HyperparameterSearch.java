@@ -0,0 +1,288 @@
+package Tuning;
+
+import ANN.EpochMetrics;
+import ANN.NeuralNetwork;
+import Data.ValidatedDataset;
+import utils.SeededRandom;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Trains many configurations at once on one shared, read-only training set
+ * and ranks them by validation accuracy. Each trial gets its own network and
+ * buffers; the rows are only read, so no trial copies the dataset. A rung of
+ * trials runs on {@code threads} workers, longest trials first, and when a
+ * rung has fewer trials than threads the spare cores go to the trials' own
+ * mini-batch sharding. Trials are seeded from the search's seed in creation
+ * order, so the results only depend on the seed and the number of threads.
+ */
+public final class HyperparameterSearch {
+    private static final Comparator<Trial> RANKING = Comparator
+            .comparingDouble((Trial trial) -> -trial.validationAccuracy)
+            .thenComparingDouble(trial -> trial.loss())
+            .thenComparingInt(trial -> trial.id);
+
+    private final ValidatedDataset training;
+    private final ValidatedDataset validation;
+    private final int numClasses;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private SeededRandom random = new SeededRandom();
+    private int nextTrial;
+
+    public HyperparameterSearch(ValidatedDataset training, ValidatedDataset validation, int numClasses) {
+        if (numClasses < 1) {
+            throw new IllegalArgumentException("Number of neurons can't be less than 1");
+        }
+        training.requireCompatible(training.numFeatures(), numClasses, true);
+        validation.requireCompatible(training.numFeatures(), numClasses, true);
+        this.training = training;
+        this.validation = validation;
+        this.numClasses = numClasses;
+    }
+
+    public void setThreads(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Number of threads can't be less than 1");
+        }
+        this.threads = threads;
+    }
+
+    // Seeds the sampled configurations and every trial's weights and row orders
+    public void setSeed(long seed) {
+        random = new SeededRandom(seed);
+    }
+
+    // Every combination in the space, each trained for the given number of epochs
+    public List<TrialResult> grid(SearchSpace space, int epochs) {
+        return successiveHalving(space.grid(), epochs, epochs, 2);
+    }
+
+    public List<TrialResult> random(SearchSpace space, int count, int epochs) {
+        return successiveHalving(space.sample(count, random), epochs, epochs, 2);
+    }
+
+    /**
+     * Trains every candidate for {@code minEpochs}, keeps the best
+     * {@code 1/eta} of them, continues those to {@code eta} times as many
+     * epochs, and so on until the survivors reach {@code maxEpochs}. Losers
+     * stop at the rung where they were dropped.
+     */
+    public List<TrialResult> successiveHalving(List<HyperParameters> candidates, int minEpochs, int maxEpochs,
+                                               int eta) {
+        if (candidates.isEmpty()) {
+            throw new IllegalArgumentException("No configurations to search");
+        }
+        if (minEpochs < 1 || maxEpochs < minEpochs) {
+            throw new IllegalArgumentException("Epochs must be at least 1 and minEpochs can't exceed maxEpochs");
+        }
+        if (eta < 2) {
+            throw new IllegalArgumentException("Reduction factor must be at least 2");
+        }
+        ExecutorService workers = workers();
+        try {
+            List<Trial> trials = newTrials(candidates);
+            halve(trials, minEpochs, maxEpochs, eta, workers);
+            return results(trials);
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    /**
+     * Hyperband (Li et al., 2018): successive halving over brackets that trade
+     * the number of sampled configurations against the epochs each one gets
+     * before its first cut, from many configurations trained for
+     * {@code maxEpochs / eta^s} epochs down to a few trained for
+     * {@code maxEpochs}.
+     */
+    public List<TrialResult> hyperband(SearchSpace space, int maxEpochs, int eta) {
+        if (maxEpochs < 1) {
+            throw new IllegalArgumentException("Epochs must be at least 1");
+        }
+        if (eta < 2) {
+            throw new IllegalArgumentException("Reduction factor must be at least 2");
+        }
+        int maxBracket = 0;
+        for (long epochs = eta; epochs <= maxEpochs; epochs *= eta) {
+            maxBracket++;
+        }
+        ExecutorService workers = workers();
+        try {
+            List<Trial> trials = new ArrayList<>();
+            for (int s = maxBracket; s >= 0; s--) {
+                long scale = (long) Math.pow(eta, s);
+                int count = (int) Math.ceil((double) (maxBracket + 1) / (s + 1) * scale);
+                List<Trial> bracket = newTrials(space.sample(count, random));
+                halve(bracket, (int) Math.max(1, maxEpochs / scale), maxEpochs, eta, workers);
+                trials.addAll(bracket);
+            }
+            return results(trials);
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    private void halve(List<Trial> trials, int minEpochs, int maxEpochs, int eta, ExecutorService workers) {
+        List<Trial> alive = trials;
+        int epochs = minEpochs;
+        while (true) {
+            trainTo(alive, epochs, workers);
+            if (epochs >= maxEpochs) {
+                return;
+            }
+            List<Trial> ranked = new ArrayList<>(alive);
+            ranked.sort(RANKING);
+            alive = new ArrayList<>(ranked.subList(0, Math.max(1, ranked.size() / eta)));
+            for (Trial loser : ranked.subList(alive.size(), ranked.size())) {
+                loser.network = null;
+            }
+            epochs = (int) Math.min(maxEpochs, (long) epochs * eta);
+        }
+    }
+
+    // Runs one rung; every trial continues from where it stopped
+    private void trainTo(List<Trial> rung, int epochs, ExecutorService workers) {
+        int threadsPerTrial = Math.max(1, threads / rung.size());
+        List<Trial> order = new ArrayList<>(rung);
+        order.sort(Comparator.comparingDouble((Trial trial) -> -trial.cost(epochs))
+                .thenComparingInt(trial -> trial.id));
+        List<Future<?>> futures = new ArrayList<>();
+        for (Trial trial : order) {
+            futures.add(workers.submit(() -> trial.trainTo(epochs, threadsPerTrial)));
+        }
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for trials", e);
+        } catch (ExecutionException e) {
+            for (Future<?> future : futures) {
+                future.cancel(true);
+            }
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Trial failed", e.getCause());
+        }
+    }
+
+    private ExecutorService workers() {
+        return Executors.newFixedThreadPool(threads, task -> {
+            Thread thread = new Thread(task, "search-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private List<Trial> newTrials(List<HyperParameters> candidates) {
+        List<Trial> created = new ArrayList<>(candidates.size());
+        for (HyperParameters parameters : candidates) {
+            created.add(new Trial(nextTrial++, parameters, random.nextLong()));
+        }
+        return created;
+    }
+
+    // Best first
+    private static List<TrialResult> results(List<Trial> trials) {
+        List<Trial> ranked = new ArrayList<>(trials);
+        ranked.sort(RANKING);
+        List<TrialResult> results = new ArrayList<>(ranked.size());
+        for (Trial trial : ranked) {
+            results.add(trial.result());
+        }
+        return results;
+    }
+
+    // The results as an aligned text table, in the given order
+    public static String table(List<TrialResult> results) {
+        StringBuilder table = new StringBuilder(String.format(Locale.ROOT,
+                "%4s %5s %-16s %5s %9s %-8s %6s %9s %9s %8s %8s%n", "rank", "trial", "hidden", "batch", "rate",
+                "optim", "epochs", "loss", "train acc", "val acc", "seconds"));
+        for (int i = 0; i < results.size(); i++) {
+            TrialResult result = results.get(i);
+            HyperParameters parameters = result.parameters();
+            table.append(String.format(Locale.ROOT, "%4d %5d %-16s %5d %9.5f %-8s %6d %9.6f %9.4f %8.4f %8.2f%n",
+                    i + 1, result.trial(), parameters.hiddenLayersName(), parameters.batchSize(),
+                    parameters.learningRate(), parameters.optimizer(), result.epochs(), result.loss(),
+                    result.accuracy(), result.validationAccuracy(), result.seconds()));
+        }
+        return table.toString();
+    }
+
+    public static void writeCsv(Path file, List<TrialResult> results) throws IOException {
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(file))) {
+            out.println("rank,trial,hidden,batch_size,learning_rate,optimizer,epochs,loss,accuracy,"
+                    + "validation_accuracy,seconds");
+            for (int i = 0; i < results.size(); i++) {
+                TrialResult result = results.get(i);
+                HyperParameters parameters = result.parameters();
+                out.printf(Locale.ROOT, "%d,%d,%s,%d,%s,%s,%d,%s,%s,%s,%s%n", i + 1, result.trial(),
+                        parameters.hiddenLayersName(), parameters.batchSize(), parameters.learningRate(),
+                        parameters.optimizer(), result.epochs(), result.loss(), result.accuracy(),
+                        result.validationAccuracy(), result.seconds());
+            }
+        }
+    }
+
+    private final class Trial {
+        final int id;
+        final HyperParameters parameters;
+        NeuralNetwork network;
+        int epochs;
+        EpochMetrics last;
+        double validationAccuracy = Double.NaN;
+        long nanos;
+
+        Trial(int id, HyperParameters parameters, long seed) {
+            this.id = id;
+            this.parameters = parameters;
+            network = parameters.build(training.numFeatures(), numClasses, seed);
+            network.setTrainingListener(metrics -> last = metrics);
+        }
+
+        void trainTo(int target, int threads) {
+            if (target <= epochs) {
+                return;
+            }
+            long start = System.nanoTime();
+            network.setEpochs(target - epochs);
+            network.setThreads(threads);
+            network.train(training);
+            validationAccuracy = network.evaluateAccuracy(validation);
+            epochs = target;
+            nanos += System.nanoTime() - start;
+        }
+
+        double loss() {
+            return last != null ? last.loss() : Double.NaN;
+        }
+
+        // Multiply-adds left to reach the target, to start the longest trials first
+        double cost(int target) {
+            int[] sizes = parameters.layerSizes(training.numFeatures(), numClasses);
+            double weights = 0.0;
+            for (int l = 1; l < sizes.length; l++) {
+                weights += (double) (sizes[l - 1] + 1) * sizes[l];
+            }
+            return weights * training.rows() * Math.max(0, target - epochs);
+        }
+
+        TrialResult result() {
+            return new TrialResult(id, parameters, epochs, loss(), last != null ? last.accuracy() : Double.NaN,
+                    validationAccuracy, nanos / 1e9);
+        }
+    }
+}
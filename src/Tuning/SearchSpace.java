@@ -0,0 +1,98 @@
+package Tuning;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.random.RandomGenerator;
+
+/**
+ * The values a {@link HyperparameterSearch} may pick for each hyperparameter.
+ * Defaults to the TrainMain settings: hidden layers 50-25, batch size 50,
+ * learning rate 0.5 and SGD. Grid searches use the listed learning rates;
+ * random samples draw from the log-uniform range if one is set.
+ */
+public final class SearchSpace {
+    private List<int[]> hiddenLayers = List.<int[]>of(new int[]{50, 25});
+    private int[] batchSizes = {50};
+    private double[] learningRates = {0.5};
+    private double minLearningRate;
+    private double maxLearningRate;
+    private String[] optimizers = {"sgd"};
+
+    public void setHiddenLayers(int[]... options) {
+        if (options.length == 0) {
+            throw new IllegalArgumentException("At least one hidden layer option is needed");
+        }
+        List<int[]> copies = new ArrayList<>();
+        for (int[] option : options) {
+            copies.add(option.clone());
+        }
+        this.hiddenLayers = copies;
+    }
+
+    public void setBatchSizes(int... batchSizes) {
+        if (batchSizes.length == 0) {
+            throw new IllegalArgumentException("At least one batch size is needed");
+        }
+        this.batchSizes = batchSizes.clone();
+    }
+
+    public void setLearningRates(double... learningRates) {
+        if (learningRates.length == 0) {
+            throw new IllegalArgumentException("At least one learning rate is needed");
+        }
+        this.learningRates = learningRates.clone();
+    }
+
+    // Random samples draw learning rates log-uniformly from [min, max]
+    public void setLearningRateRange(double min, double max) {
+        if (!(min > 0.0) || !(max >= min)) {
+            throw new IllegalArgumentException("Learning rate range must be positive and ordered");
+        }
+        this.minLearningRate = min;
+        this.maxLearningRate = max;
+    }
+
+    public void setOptimizers(String... optimizers) {
+        if (optimizers.length == 0) {
+            throw new IllegalArgumentException("At least one optimizer is needed");
+        }
+        for (String optimizer : optimizers) {
+            HyperParameters.newOptimizer(optimizer);
+        }
+        this.optimizers = optimizers.clone();
+    }
+
+    // Every combination of the listed values
+    public List<HyperParameters> grid() {
+        List<HyperParameters> grid = new ArrayList<>();
+        for (int[] hidden : hiddenLayers) {
+            for (int batchSize : batchSizes) {
+                for (double learningRate : learningRates) {
+                    for (String optimizer : optimizers) {
+                        grid.add(new HyperParameters(hidden, batchSize, learningRate, optimizer));
+                    }
+                }
+            }
+        }
+        return grid;
+    }
+
+    public List<HyperParameters> sample(int count, RandomGenerator random) {
+        List<HyperParameters> samples = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            samples.add(sample(random));
+        }
+        return samples;
+    }
+
+    public HyperParameters sample(RandomGenerator random) {
+        int[] hidden = hiddenLayers.get(random.nextInt(hiddenLayers.size()));
+        int batchSize = batchSizes[random.nextInt(batchSizes.length)];
+        double learningRate = maxLearningRate > 0.0
+                ? Math.exp(Math.log(minLearningRate)
+                        + random.nextDouble() * (Math.log(maxLearningRate) - Math.log(minLearningRate)))
+                : learningRates[random.nextInt(learningRates.length)];
+        String optimizer = optimizers[random.nextInt(optimizers.length)];
+        return new HyperParameters(hidden, batchSize, learningRate, optimizer);
+    }
+}
@@ -0,0 +1,10 @@
+package Tuning;
+
+/**
+ * Outcome of one configuration after the last epoch it trained. Loss and
+ * accuracy are the training metrics of that epoch; trials stopped early by
+ * successive halving or Hyperband report fewer epochs than the winners.
+ */
+public record TrialResult(int trial, HyperParameters parameters, int epochs, double loss, double accuracy,
+                          double validationAccuracy, double seconds) {
+}
@@ -0,0 +1,18 @@
+package utils;
+
+import Data.Dataset;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Decoded images read from an {@link ImageCache} file: {@code rows} images of
+ * {@code numFeatures} uint8 pixels, row-major, usually backed by a read-only
+ * memory mapping.
+ */
+public record CachedImages(int rows, int numFeatures, int[] labels, ByteBuffer pixels) {
+
+    // uint8 dataset over the cached pixels, without copying them
+    public Dataset toDataset() {
+        return Dataset.uint8(pixels, numFeatures, labels.clone());
+    }
+}
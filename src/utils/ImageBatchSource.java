@@ -0,0 +1,273 @@
+package utils;
+
+import Data.BatchSource;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Streams an image dataset laid out like {@link ImageUtils#loadDataset} (one
+ * folder per class) instead of loading it into memory. Only the file list is
+ * kept; a producer thread decodes the files of each mini-batch on a pool of
+ * decoder threads and hands them over through a bounded queue. At most
+ * {@code prefetch + 2} batches are alive at once, whatever the dataset size, and
+ * the batch buffers are reused from epoch to epoch. Each epoch reads the files
+ * in a new shuffled order.
+ */
+public final class ImageBatchSource implements BatchSource {
+    private static final Batch END = new Batch(0, 0);
+
+    private final File[] files;
+    private final int[] fileLabels;
+    private final int[] order;
+    private final int numFeatures;
+    private final int batchSize;
+    private final int decodeThreads;
+    private SeededRandom random = new SeededRandom();
+    private final ExecutorService decoders;
+    private final BlockingQueue<Batch> ready;
+    private final BlockingQueue<Batch> free;
+
+    private Thread producer;
+    private Batch current;
+    private int position;
+    private boolean exhausted = true;
+
+    public ImageBatchSource(String rootPath, LabelEncoder encoder, int maxLen, int batchSize) throws IOException {
+        this(rootPath, encoder, maxLen, batchSize, 4, Runtime.getRuntime().availableProcessors());
+    }
+
+    public ImageBatchSource(String rootPath, LabelEncoder encoder, int maxLen, int batchSize, int prefetch,
+                            int decodeThreads) throws IOException {
+        if (batchSize < 1 || prefetch < 1 || decodeThreads < 1) {
+            throw new IllegalArgumentException("Batch size, prefetch and decode threads must be at least 1");
+        }
+        ImageListing listing = ImageListing.of(rootPath, encoder, maxLen);
+        if (listing.size() == 0) {
+            throw new IllegalArgumentException("No images found in " + rootPath);
+        }
+        files = listing.files();
+        fileLabels = listing.labels();
+        order = new int[files.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        numFeatures = ImageUtils.readGrayscaleNormalized(files[0]).length;
+        this.batchSize = batchSize;
+        this.decodeThreads = decodeThreads;
+
+        free = new ArrayBlockingQueue<>(prefetch + 2);
+        ready = new ArrayBlockingQueue<>(prefetch + 3); // room for the END marker
+        for (int i = 0; i < prefetch + 2; i++) {
+            free.add(new Batch(batchSize, numFeatures));
+        }
+        decoders = Executors.newFixedThreadPool(decodeThreads, task -> {
+            Thread thread = new Thread(task, "image-decoder");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public int numFeatures() {
+        return numFeatures;
+    }
+
+    @Override
+    public int size() {
+        return files.length;
+    }
+
+    // Makes the order of every epoch depend only on the seed; call it before training, not during an epoch
+    public void setSeed(long seed) {
+        random = new SeededRandom(seed);
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+    }
+
+    @Override
+    public void startEpoch() {
+        stopProducer();
+        for (int i = order.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = order[i];
+            order[i] = order[j];
+            order[j] = swap;
+        }
+        exhausted = false;
+        // the producer reads order only after this point and until the next stopProducer()
+        producer = new Thread(this::produce, "image-batch-producer");
+        producer.setDaemon(true);
+        producer.start();
+    }
+
+    @Override
+    public int next(double[] inputs, int[] labels, int maxRows) {
+        if (producer == null) {
+            throw new IllegalStateException("startEpoch() has not been called");
+        }
+        int copied = 0;
+        while (copied < maxRows && !exhausted) {
+            if (current == null) {
+                current = take();
+                if (current == END) {
+                    current = null;
+                    exhausted = true;
+                    break;
+                }
+                if (current.error != null) {
+                    IOException error = current.error;
+                    recycle(current);
+                    current = null;
+                    exhausted = true;
+                    throw new UncheckedIOException(error);
+                }
+                position = 0;
+            }
+            int rows = Math.min(maxRows - copied, current.rows - position);
+            System.arraycopy(current.inputs, position * numFeatures, inputs, copied * numFeatures,
+                    rows * numFeatures);
+            System.arraycopy(current.labels, position, labels, copied, rows);
+            position += rows;
+            copied += rows;
+            if (position == current.rows) {
+                recycle(current);
+                current = null;
+            }
+        }
+        return copied;
+    }
+
+    @Override
+    public void close() {
+        stopProducer();
+        decoders.shutdownNow();
+    }
+
+    // Producer thread: fills free batches in epoch order until the epoch ends or it is interrupted
+    private void produce() {
+        Batch batch = null;
+        try {
+            for (int start = 0; start < order.length; start += batchSize) {
+                batch = free.take();
+                batch.rows = Math.min(batchSize, order.length - start);
+                batch.error = null;
+                decode(batch, start);
+                ready.put(batch);
+                if (batch.error != null) {
+                    return;
+                }
+                batch = null;
+            }
+            ready.put(END);
+        } catch (InterruptedException e) {
+            // epoch abandoned or source closed; decode() has let its tasks finish
+            if (batch != null) {
+                recycle(batch);
+            }
+        }
+    }
+
+    /*
+     * Decodes the batch rows in decodeThreads contiguous slices. Always waits for
+     * every slice, even when interrupted, so no decoder still writes into the
+     * batch once it goes back to the free list.
+     */
+    private void decode(Batch batch, int start) throws InterruptedException {
+        int slices = Math.min(decodeThreads, batch.rows);
+        List<Future<?>> futures = new ArrayList<>(slices);
+        for (int s = 0; s < slices; s++) {
+            int from = batch.rows * s / slices;
+            int to = batch.rows * (s + 1) / slices;
+            futures.add(decoders.submit(() -> {
+                for (int r = from; r < to; r++) {
+                    int idx = order[start + r];
+                    ImageUtils.readGrayscaleNormalized(files[idx], batch.inputs, r * numFeatures, numFeatures);
+                    batch.labels[r] = fileLabels[idx];
+                }
+                return null;
+            }));
+        }
+        boolean interrupted = false;
+        for (Future<?> future : futures) {
+            while (true) {
+                try {
+                    future.get();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (ExecutionException e) {
+                    if (batch.error == null) {
+                        Throwable cause = e.getCause();
+                        batch.error = cause instanceof IOException io ? io : new IOException(cause);
+                    }
+                    break;
+                }
+            }
+        }
+        if (interrupted) {
+            throw new InterruptedException();
+        }
+    }
+
+    private Batch take() {
+        try {
+            return ready.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for images", e);
+        }
+    }
+
+    private void recycle(Batch batch) {
+        if (batch != END) {
+            free.add(batch);
+        }
+    }
+
+    // Stops the current epoch's producer and returns every batch to the free list
+    private void stopProducer() {
+        if (producer == null) {
+            return;
+        }
+        producer.interrupt();
+        try {
+            producer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while stopping the image producer", e);
+        }
+        if (current != null) {
+            recycle(current);
+            current = null;
+        }
+        Batch batch;
+        while ((batch = ready.poll()) != null) {
+            recycle(batch);
+        }
+        producer = null;
+        exhausted = true;
+    }
+
+    private static final class Batch {
+        final double[] inputs;
+        final int[] labels;
+        int rows;
+        IOException error;
+
+        Batch(int capacity, int numFeatures) {
+            inputs = new double[capacity * numFeatures];
+            labels = new int[capacity];
+        }
+    }
+}
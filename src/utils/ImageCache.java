@@ -0,0 +1,210 @@
+package utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * On-disk cache of decoded image datasets.
+ * <p>
+ * Layout (little-endian): the magic {@code "ANNI"}, the format version, the
+ * 64-bit listing key, the row count and the pixels per row, padded to 64 bytes;
+ * then one int32 label per row; then the uint8 pixels of every row, starting on
+ * a 64-byte boundary. The key hashes each file's path, size, modification time
+ * and label, so a cache is only reused for exactly the same images.
+ */
+public final class ImageCache {
+    private static final byte[] MAGIC = {'A', 'N', 'N', 'I'};
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 64;
+    private static final int BLOCK_ALIGNMENT = 64;
+    // images decoded (in parallel) per write
+    private static final int CHUNK_ROWS = 1024;
+    private static final String SUFFIX = ".u8";
+
+    private ImageCache() {
+    }
+
+    // Maps the cache for rootPath, building it first if it is missing or out of date
+    public static CachedImages load(String rootPath, LabelEncoder encoder, int maxLen, String cacheDir)
+            throws IOException {
+        return load(ImageListing.of(rootPath, encoder, maxLen), cacheDir);
+    }
+
+    static CachedImages load(ImageListing listing, String cacheDir) throws IOException {
+        long key = key(listing);
+        Path dir = Path.of(cacheDir);
+        String prefix = prefix(listing);
+        Path path = dir.resolve(prefix + String.format("%016x", key) + SUFFIX);
+
+        if (Files.isRegularFile(path)) {
+            CachedImages cached = map(path, key, listing.size());
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        Files.createDirectories(dir);
+        write(listing, key, path);
+        removeStale(dir, prefix, path);
+        CachedImages cached = map(path, key, listing.size());
+        if (cached == null) {
+            throw new IOException("Image cache could not be read back: " + path);
+        }
+        return cached;
+    }
+
+    /*
+     * Folder name plus a hash of the canonical root and maxLen, so rebuilding a
+     * cache only replaces older caches of the same folder and limit, never those
+     * of another maxLen or of a different folder with the same name.
+     */
+    private static String prefix(ImageListing listing) throws IOException {
+        String identity = listing.root().getCanonicalPath() + "\0" + listing.maxLen();
+        MessageDigest digest = sha256();
+        long hash = ByteBuffer.wrap(digest.digest(identity.getBytes(StandardCharsets.UTF_8))).getLong();
+        return listing.root().getName() + "-" + String.format("%08x", hash >>> 32) + "-";
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static long key(ImageListing listing) {
+        MessageDigest digest = sha256();
+        Path root = listing.root().toPath();
+        ByteBuffer entry = ByteBuffer.allocate(2 * Long.BYTES + Integer.BYTES);
+        File[] files = listing.files();
+        for (int i = 0; i < files.length; i++) {
+            digest.update(root.relativize(files[i].toPath()).toString().getBytes(StandardCharsets.UTF_8));
+            entry.clear();
+            entry.putLong(files[i].length()).putLong(files[i].lastModified()).putInt(listing.labels()[i]);
+            digest.update(entry.array());
+        }
+        return ByteBuffer.wrap(digest.digest()).getLong();
+    }
+
+    // Decodes the listing chunk by chunk into a temporary file, then renames it into place
+    private static void write(ImageListing listing, long key, Path path) throws IOException {
+        File[] files = listing.files();
+        int rows = files.length;
+        int numFeatures = rows > 0 ? ImageUtils.readGrayscaleNormalized(files[0]).length : 0;
+        long pixelsStart = pixelsStart(rows);
+        if (pixelsStart + (long) rows * numFeatures > Integer.MAX_VALUE) {
+            throw new IOException("Dataset is too large for one image cache: " + listing.root());
+        }
+
+        ByteBuffer header = ByteBuffer.allocate((int) pixelsStart).order(ByteOrder.LITTLE_ENDIAN);
+        header.put(MAGIC).putInt(VERSION).putLong(key).putInt(rows).putInt(numFeatures);
+        header.position(HEADER_SIZE);
+        header.asIntBuffer().put(listing.labels());
+        header.rewind();
+
+        Path temp = Files.createTempFile(path.getParent(), path.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                writeFully(channel, header, 0);
+                byte[] chunk = new byte[Math.min(CHUNK_ROWS, Math.max(rows, 1)) * numFeatures];
+                long position = pixelsStart;
+                for (int start = 0; start < rows; start += CHUNK_ROWS) {
+                    int count = Math.min(CHUNK_ROWS, rows - start);
+                    decode(files, start, count, numFeatures, chunk);
+                    writeFully(channel, ByteBuffer.wrap(chunk, 0, count * numFeatures), position);
+                    position += (long) count * numFeatures;
+                }
+            }
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static void decode(File[] files, int start, int count, int numFeatures, byte[] chunk) throws IOException {
+        try {
+            IntStream.range(0, count).parallel().forEach(i -> {
+                try {
+                    ImageUtils.readGrayscale(files[start + i], chunk, i * numFeatures, numFeatures);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    // Returns null if the file isn't a complete cache for this key
+    private static CachedImages map(Path path, long key, int expectedRows) throws IOException {
+        MappedByteBuffer file;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE || channel.size() > Integer.MAX_VALUE) {
+                return null;
+            }
+            file = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        ByteBuffer buffer = file.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        try {
+            byte[] magic = new byte[MAGIC.length];
+            buffer.get(magic);
+            if (!Arrays.equals(magic, MAGIC) || buffer.getInt() != VERSION || buffer.getLong() != key) {
+                return null;
+            }
+            int rows = buffer.getInt();
+            int numFeatures = buffer.getInt();
+            long pixelsStart = pixelsStart(rows);
+            if (rows != expectedRows || numFeatures < 0
+                    || pixelsStart + (long) rows * numFeatures != file.capacity()) {
+                return null;
+            }
+            int[] labels = new int[rows];
+            buffer.position(HEADER_SIZE);
+            buffer.asIntBuffer().get(labels);
+            ByteBuffer pixels = file.slice((int) pixelsStart, rows * numFeatures);
+            return new CachedImages(rows, numFeatures, labels, pixels);
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    // Older caches of the same folder and maxLen can never match again
+    private static void removeStale(Path dir, String prefix, Path current) throws IOException {
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir, prefix + "*" + SUFFIX)) {
+            for (Path entry : entries) {
+                if (!entry.equals(current)) {
+                    Files.deleteIfExists(entry);
+                }
+            }
+        }
+    }
+
+    private static long pixelsStart(int rows) {
+        long end = HEADER_SIZE + (long) rows * Integer.BYTES;
+        return (end + BLOCK_ALIGNMENT - 1) / BLOCK_ALIGNMENT * BLOCK_ALIGNMENT;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package utils;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+// Image files of a dataset folder (one sub-folder per class) and their encoded labels, in load order;
+// maxLen is the per-class limit the listing was made with
+record ImageListing(File root, int maxLen, File[] files, int[] labels) {
+
+    static ImageListing of(String rootPath, LabelEncoder encoder, int maxLen) {
+        File root = new File(rootPath);
+        if (!root.isDirectory()) {
+            throw new IllegalArgumentException("Invalid dataset path: " + rootPath);
+        }
+
+        List<File> files = new ArrayList<>();
+        List<Integer> labels = new ArrayList<>();
+        for (File classDir : Objects.requireNonNull(root.listFiles())) {
+            if (!classDir.isDirectory()) continue;
+
+            String labelName = classDir.getName();
+            int labelIndex = encoder.encode(labelName);
+
+            File[] images = Objects.requireNonNull(classDir.listFiles());
+            int n = Math.min(images.length, maxLen);
+            for (int i = 0; i < n; i++) {
+                if (!images[i].isFile()) continue;
+                files.add(images[i]);
+                labels.add(labelIndex);
+            }
+        }
+        return new ImageListing(root, maxLen, files.toArray(new File[0]),
+                labels.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    int size() {
+        return files.length;
+    }
+}
@@ -4,12 +4,14 @@ import Data.Dataset;
 
 import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBufferByte;
 import java.awt.image.Raster;
 import java.io.File;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Objects;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.stream.IntStream;
 
 public final class ImageUtils {
 
@@ -21,10 +23,41 @@ public final class ImageUtils {
      * and flattens to a row-major double array.
      */
     public static double[] readGrayscaleNormalized(File file) throws IOException {
+        BufferedImage gray = readGrayscale(file);
+        int length = gray.getWidth() * gray.getHeight();
+        double[] result = new double[length];
+        normalize(pixels(gray), result, 0, length);
+        return result;
+    }
+
+    // Same as readGrayscaleNormalized(File), written into dest at offset; the image must have length pixels
+    public static void readGrayscaleNormalized(File file, double[] dest, int offset, int length) throws IOException {
+        BufferedImage gray = readGrayscale(file, length);
+        normalize(pixels(gray), dest, offset, length);
+    }
+
+    // Raw 0–255 grayscale pixels, row-major, written into dest at offset; the image must have length pixels
+    public static void readGrayscale(File file, byte[] dest, int offset, int length) throws IOException {
+        BufferedImage gray = readGrayscale(file, length);
+        System.arraycopy(pixels(gray), 0, dest, offset, length);
+    }
+
+    private static BufferedImage readGrayscale(File file, int length) throws IOException {
+        BufferedImage gray = readGrayscale(file);
+        if (gray.getWidth() * gray.getHeight() != length) {
+            throw new IOException("Image size doesn't match the other images: " + file);
+        }
+        return gray;
+    }
+
+    private static BufferedImage readGrayscale(File file) throws IOException {
         BufferedImage color = ImageIO.read(file);
         if (color == null) {
             throw new IOException("Unsupported image format");
         }
+        if (isPackedGray(color)) {
+            return color;
+        }
 
         // Convert to grayscale
         BufferedImage gray = new BufferedImage(
@@ -35,53 +68,64 @@ public final class ImageUtils {
 
         gray.getGraphics().drawImage(color, 0, 0, null);
 
-        Raster raster = gray.getRaster();
+        return gray;
+    }
 
-        int w = gray.getWidth();
-        int h = gray.getHeight();
-        double[] result = new double[w * h];
+    // One byte per pixel with rows back to back, so the backing array can be read as is
+    private static boolean isPackedGray(BufferedImage image) {
+        Raster raster = image.getRaster();
+        return image.getType() == BufferedImage.TYPE_BYTE_GRAY
+                && raster.getParent() == null
+                && raster.getDataBuffer() instanceof DataBufferByte buffer
+                && buffer.getOffset() == 0
+                && raster.getSampleModel() instanceof ComponentSampleModel model
+                && model.getPixelStride() == 1
+                && model.getScanlineStride() == image.getWidth()
+                && model.getBandOffsets()[0] == 0;
+    }
 
-        int idx = 0;
-        for (int y = 0; y < h; y++) {
-            for (int x = 0; x < w; x++) {
-                int value = raster.getSample(x, y, 0); // 0–255
-                result[idx++] = value / 255.0;
-            }
-        }
+    private static byte[] pixels(BufferedImage gray) {
+        return ((DataBufferByte) gray.getRaster().getDataBuffer()).getData();
+    }
 
-        return result;
+    static void normalize(byte[] pixels, double[] dest, int offset, int length) {
+        for (int i = 0; i < length; i++) {
+            dest[offset + i] = (pixels[i] & 0xFF) / 255.0;
+        }
     }
 
+    // Decodes the images on all cores into one uint8 buffer; rows keep the folder listing order
     public static Dataset loadDataset(String rootPath, LabelEncoder encoder, int maxLen) throws IOException {
-        List<double[]> inputs = new ArrayList<>();
-        List<Integer> labels = new ArrayList<>();
-
-        File root = new File(rootPath);
-        if (!root.isDirectory()) {
-            throw new IllegalArgumentException("Invalid dataset path: " + rootPath);
+        ImageListing listing = ImageListing.of(rootPath, encoder, maxLen);
+        File[] files = listing.files();
+        int numFeatures = files.length > 0 ? readGrayscaleNormalized(files[0]).length : 0;
+        if ((long) files.length * numFeatures > Integer.MAX_VALUE) {
+            throw new IOException("Dataset is too large for one buffer: " + rootPath);
         }
-
-        for (File classDir : Objects.requireNonNull(root.listFiles())) {
-            if (!classDir.isDirectory()) continue;
-
-            String labelName = classDir.getName();
-            int labelIndex = encoder.encode(labelName);
-
-            File[] images = Objects.requireNonNull(classDir.listFiles());
-            int n = Math.min(images.length, maxLen);
-            for (int i = 0; i < n; i++) {
-                if (!images[i].isFile()) continue;
-
-                double[] input = ImageUtils.readGrayscaleNormalized(images[i]);
-
-                inputs.add(input);
-                labels.add(labelIndex);
-            }
+        byte[] pixels = new byte[files.length * numFeatures];
+        try {
+            IntStream.range(0, files.length).parallel().forEach(i -> {
+                try {
+                    readGrayscale(files[i], pixels, i * numFeatures, numFeatures);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
         }
+        return Dataset.uint8(ByteBuffer.wrap(pixels), numFeatures, listing.labels());
+    }
 
-        return new Dataset(
-                inputs.toArray(new double[0][]),
-                labels.stream().mapToInt(Integer::intValue).toArray()
-        );
+    /**
+     * Like {@link #loadDataset(String, LabelEncoder, int)}, but keeps the decoded
+     * pixels in a uint8 cache file under {@code cacheDir}. The cache is keyed by
+     * the file listing with sizes and modification times, so later runs
+     * memory-map it instead of decoding any PNG, and any change to the images
+     * builds a new one.
+     */
+    public static Dataset loadDataset(String rootPath, LabelEncoder encoder, int maxLen, String cacheDir)
+            throws IOException {
+        return ImageCache.load(ImageListing.of(rootPath, encoder, maxLen), cacheDir).toDataset();
     }
-}
\ No newline at end of file
+}
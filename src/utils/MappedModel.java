@@ -0,0 +1,13 @@
+package utils;
+
+import ANN.MappedPredictor;
+import Data.FeatureScaler;
+
+// scaler is the preprocessing stored with the model, or null if the inputs are used as they are
+public record MappedModel(MappedPredictor predictor, LabelEncoder encoder, FeatureScaler scaler) {
+
+    // Applies the stored preprocessing to one input row in place
+    public double[] preprocess(double[] inputs) {
+        return scaler == null ? inputs : scaler.transform(inputs);
+    }
+}
@@ -1,9 +1,47 @@
 package utils;
 
+import ANN.Layer;
+import ANN.MappedPredictor;
+import ANN.NeuralNetwork;
+import Activation.ActivationFunction;
+import Activation.Linear;
+import Activation.ReLU;
+import Activation.Sigmoid;
+import Activation.Softmax;
+import Activation.Tanh;
+import Data.FeatureScaler;
+
 import java.io.*;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
 
 public class ModelIO {
 
+    /*
+     * Binary model format, all values little-endian:
+     *   "ANNM", int version, int numLayers, int numLabels
+     *   int scaler features (0 if there is no scaler), int scaler flags (1 = impute only)
+     *   int[numLayers + 1] layer sizes, int[numLayers] activation ids
+     *   numLabels x (int byte length, UTF-8 bytes), padding to 8 bytes
+     *   long[numLayers] file offsets of the weight blocks, long file offset of the scaler block
+     *   weight blocks: double[(in + 1) * out] in Layer order, each aligned to 64 bytes
+     *   scaler block: double[3 * features] fill, offset and scale values, aligned to 64 bytes
+     * Version 1 files have no scaler fields and no scaler block; they are still read.
+     */
+    private static final byte[] MAGIC = {'A', 'N', 'N', 'M'};
+    private static final int VERSION = 2;
+    private static final int SCALER_IMPUTE_ONLY = 1;
+    private static final int BLOCK_ALIGNMENT = 64;
+    private static final int WRITE_CHUNK = 8192;
+
     private ModelIO() {
     }
 
@@ -21,4 +59,234 @@ public class ModelIO {
             return (TrainedModel) in.readObject();
         }
     }
-}
\ No newline at end of file
+
+    public static void saveBinary(String path, TrainedModel model) throws IOException {
+        Layer[] layers = model.network().getLayers();
+        LabelEncoder encoder = model.encoder();
+        FeatureScaler scaler = model.scaler();
+        int scalerFeatures = scaler != null ? scaler.numFeatures() : 0;
+        if (scaler != null && scalerFeatures != layers[0].numNodesIn) {
+            throw new IllegalArgumentException("Number of features doesn't match the scaler");
+        }
+
+        byte[][] labels = new byte[encoder.numClasses()][];
+        int labelBytes = 0;
+        for (int i = 0; i < labels.length; i++) {
+            labels[i] = encoder.decode(i).getBytes(StandardCharsets.UTF_8);
+            labelBytes += Integer.BYTES + labels[i].length;
+        }
+        int offsetsStart = align(24 + (2 * layers.length + 1) * Integer.BYTES + labelBytes, Long.BYTES);
+        int headerSize = offsetsStart + (layers.length + 1) * Long.BYTES;
+
+        long[] offsets = new long[layers.length];
+        long position = align(headerSize, BLOCK_ALIGNMENT);
+        for (int l = 0; l < layers.length; l++) {
+            offsets[l] = position;
+            position = align(position + (long) layers[l].numParameters() * Double.BYTES, BLOCK_ALIGNMENT);
+        }
+        long scalerOffset = scaler != null ? position : 0;
+
+        ByteBuffer header = ByteBuffer.allocate(headerSize).order(ByteOrder.LITTLE_ENDIAN);
+        header.put(MAGIC).putInt(VERSION).putInt(layers.length).putInt(labels.length);
+        header.putInt(scalerFeatures).putInt(scaler != null && scaler.isImputeOnly() ? SCALER_IMPUTE_ONLY : 0);
+        header.putInt(layers[0].numNodesIn);
+        for (Layer layer : layers) {
+            header.putInt(layer.numNodesOut);
+        }
+        for (Layer layer : layers) {
+            header.putInt(activationId(layer.getActivationFunction()));
+        }
+        for (byte[] label : labels) {
+            header.putInt(label.length).put(label);
+        }
+        header.position(offsetsStart);
+        for (long offset : offsets) {
+            header.putLong(offset);
+        }
+        header.putLong(scalerOffset);
+        header.flip();
+
+        try (FileChannel channel = FileChannel.open(Path.of(path), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeFully(channel, header, 0);
+            ByteBuffer chunk = ByteBuffer.allocate(WRITE_CHUNK * Double.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            for (int l = 0; l < layers.length; l++) {
+                writeDoubles(channel, chunk, layers[l].getWeights(), offsets[l]);
+            }
+            if (scaler != null) {
+                writeDoubles(channel, chunk, scaler.fill(), scalerOffset);
+                writeDoubles(channel, chunk, scaler.offsets(), scalerOffset + (long) scalerFeatures * Double.BYTES);
+                writeDoubles(channel, chunk, scaler.scales(), scalerOffset + 2L * scalerFeatures * Double.BYTES);
+            }
+        }
+    }
+
+    private static void writeDoubles(FileChannel channel, ByteBuffer chunk, double[] values, long filePosition)
+            throws IOException {
+        for (int i = 0; i < values.length; i += WRITE_CHUNK) {
+            int count = Math.min(WRITE_CHUNK, values.length - i);
+            chunk.clear();
+            chunk.asDoubleBuffer().put(values, i, count);
+            chunk.limit(count * Double.BYTES);
+            writeFully(channel, chunk, filePosition);
+            filePosition += (long) count * Double.BYTES;
+        }
+    }
+
+    // Reads a binary model file into a regular heap network that can be trained further
+    public static TrainedModel loadBinary(String path) throws IOException {
+        MappedByteBuffer buffer = mapFile(path);
+        Header header = readHeader(buffer, path);
+        Layer[] layers = new Layer[header.weights.length];
+        for (int l = 0; l < layers.length; l++) {
+            DoubleBuffer source = header.weights[l];
+            double[] weights = new double[source.capacity()];
+            source.get(0, weights);
+            layers[l] = new Layer(header.layerSizes[l], header.layerSizes[l + 1], header.activationFunctions[l], weights);
+        }
+        return new TrainedModel(new NeuralNetwork(layers), header.encoder, header.scaler);
+    }
+
+    /**
+     * Memory-maps a binary model file for inference. Weights are read directly
+     * from the mapping, so loading costs only the header parse and processes
+     * mapping the same file share one page-cache copy. The file must stay
+     * unchanged while the model is in use.
+     */
+    public static MappedModel map(String path) throws IOException {
+        MappedByteBuffer buffer = mapFile(path);
+        Header header = readHeader(buffer, path);
+        return new MappedModel(
+                new MappedPredictor(header.layerSizes, header.activationFunctions, header.weights),
+                header.encoder, header.scaler);
+    }
+
+    // scaler is null if the file has none
+    private record Header(int[] layerSizes, ActivationFunction[] activationFunctions,
+                          LabelEncoder encoder, DoubleBuffer[] weights, FeatureScaler scaler) {
+    }
+
+    private static MappedByteBuffer mapFile(String path) throws IOException {
+        try (FileChannel channel = FileChannel.open(Path.of(path), StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Model file is too large to map: " + path);
+            }
+            // the mapping stays valid after the channel is closed
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    private static Header readHeader(MappedByteBuffer file, String path) throws IOException {
+        ByteBuffer buffer = file.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        try {
+            byte[] magic = new byte[MAGIC.length];
+            buffer.get(magic);
+            if (!Arrays.equals(magic, MAGIC)) {
+                throw new IOException("Not a binary model file: " + path);
+            }
+            int version = buffer.getInt();
+            if (version != 1 && version != VERSION) {
+                throw new IOException("Unsupported model format version " + version + ": " + path);
+            }
+            int numLayers = buffer.getInt();
+            int numLabels = buffer.getInt();
+            int scalerFeatures = version >= 2 ? buffer.getInt() : 0;
+            int scalerFlags = version >= 2 ? buffer.getInt() : 0;
+            // sizes come from the file, so they are checked before anything is allocated from them
+            if (numLayers < 1 || numLabels < 0 || scalerFeatures < 0
+                    || numLayers > buffer.remaining() / (2 * Integer.BYTES)) {
+                throw new IOException("Corrupt model header: " + path);
+            }
+
+            int[] layerSizes = new int[numLayers + 1];
+            for (int i = 0; i <= numLayers; i++) {
+                layerSizes[i] = buffer.getInt();
+                if (layerSizes[i] < 1) {
+                    throw new IOException("Corrupt model header: " + path);
+                }
+            }
+            ActivationFunction[] activationFunctions = new ActivationFunction[numLayers];
+            for (int l = 0; l < numLayers; l++) {
+                activationFunctions[l] = activationFunction(buffer.getInt());
+            }
+            LabelEncoder encoder = new LabelEncoder();
+            for (int i = 0; i < numLabels; i++) {
+                int length = buffer.getInt();
+                if (length < 0 || length > buffer.remaining()) {
+                    throw new IOException("Corrupt model header: " + path);
+                }
+                byte[] label = new byte[length];
+                buffer.get(label);
+                encoder.encode(new String(label, StandardCharsets.UTF_8));
+            }
+            buffer.position(align(buffer.position(), Long.BYTES));
+
+            DoubleBuffer[] weights = new DoubleBuffer[numLayers];
+            for (int l = 0; l < numLayers; l++) {
+                long offset = buffer.getLong();
+                long length = (long) (layerSizes[l] + 1) * layerSizes[l + 1] * Double.BYTES;
+                if (offset < 0 || length < 0 || length > file.capacity() - offset) {
+                    throw new IOException("Corrupt weight block for layer " + l + ": " + path);
+                }
+                weights[l] = file.slice((int) offset, (int) length).order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+            }
+
+            FeatureScaler scaler = null;
+            long scalerOffset = version >= 2 ? buffer.getLong() : 0;
+            if (scalerFeatures > 0) {
+                long length = 3L * scalerFeatures * Double.BYTES;
+                if (scalerFeatures != layerSizes[0] || scalerOffset < 0 || scalerOffset + length > file.capacity()) {
+                    throw new IOException("Corrupt scaler block: " + path);
+                }
+                // copied to the heap: the scaler is small and must stay serializable with the model
+                DoubleBuffer values = file.slice((int) scalerOffset, (int) length)
+                        .order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+                double[] fill = new double[scalerFeatures];
+                double[] offset = new double[scalerFeatures];
+                double[] scale = new double[scalerFeatures];
+                values.get(0, fill).get(scalerFeatures, offset).get(2 * scalerFeatures, scale);
+                scaler = FeatureScaler.of(fill, offset, scale, (scalerFlags & SCALER_IMPUTE_ONLY) != 0);
+            }
+            return new Header(layerSizes, activationFunctions, encoder, weights, scaler);
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            throw new IOException("Corrupt model file: " + path, e);
+        }
+    }
+
+    private static int activationId(ActivationFunction activationFunction) {
+        if (activationFunction instanceof Linear) return 0;
+        if (activationFunction instanceof ReLU) return 1;
+        if (activationFunction instanceof Sigmoid sigmoid) return sigmoid.isApproximate() ? 5 : 2;
+        if (activationFunction instanceof Tanh tanh) return tanh.isApproximate() ? 6 : 3;
+        if (activationFunction instanceof Softmax) return 4;
+        throw new IllegalArgumentException(
+                "Activation function can't be stored in a binary model: " + activationFunction.getClass().getName());
+    }
+
+    private static ActivationFunction activationFunction(int id) throws IOException {
+        return switch (id) {
+            case 0 -> new Linear();
+            case 1 -> new ReLU();
+            case 2 -> new Sigmoid();
+            case 3 -> new Tanh();
+            case 4 -> new Softmax();
+            case 5 -> new Sigmoid(true);
+            case 6 -> new Tanh(true);
+            default -> throw new IOException("Unknown activation id " + id);
+        };
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    private static int align(int value, int alignment) {
+        return (value + alignment - 1) / alignment * alignment;
+    }
+
+    private static long align(long value, int alignment) {
+        return (value + alignment - 1) / alignment * alignment;
+    }
+}
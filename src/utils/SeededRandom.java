@@ -0,0 +1,85 @@
+package utils;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
+
+/**
+ * SplitMix64 generator, the algorithm behind {@link java.util.SplittableRandom},
+ * but serializable and cheap to copy so checkpoints can store its state. The
+ * same seed always gives the same sequence, and the same values as a
+ * SplittableRandom with that seed: nextInt has its own 32-bit mix as there,
+ * and the other methods, bounded ones included, are built on nextInt and
+ * nextLong the same way. {@link #split()} derives an
+ * independent generator, so each consumer (initializer, shuffle, split,
+ * validation sampling) can own a stream whose values don't depend on how many
+ * numbers the others draw.
+ */
+public final class SeededRandom implements RandomGenerator, Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    private long seed;
+    private final long gamma;
+
+    // Seeded from entropy, for runs that don't need to be reproduced
+    public SeededRandom() {
+        this(ThreadLocalRandom.current().nextLong());
+    }
+
+    public SeededRandom(long seed) {
+        this(seed, GOLDEN_GAMMA);
+    }
+
+    private SeededRandom(long seed, long gamma) {
+        this.seed = seed;
+        this.gamma = gamma;
+    }
+
+    @Override
+    public long nextLong() {
+        return mix64(nextSeed());
+    }
+
+    // Own 32-bit mix as in SplittableRandom, not the high half of nextLong()
+    @Override
+    public int nextInt() {
+        return mix32(nextSeed());
+    }
+
+    // Independent generator seeded from this one's next values; advances this generator
+    public SeededRandom split() {
+        return new SeededRandom(nextLong(), mixGamma(nextSeed()));
+    }
+
+    // Generator that produces the same sequence as this one from here on
+    public SeededRandom copy() {
+        return new SeededRandom(seed, gamma);
+    }
+
+    private long nextSeed() {
+        return seed += gamma;
+    }
+
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    private static int mix32(long z) {
+        z = (z ^ (z >>> 33)) * 0x62a9d9ed799705f5L;
+        return (int) (((z ^ (z >>> 28)) * 0xcb24d0a5c88c35b3L) >>> 32);
+    }
+
+    // Odd increment with enough bit transitions, as in SplittableRandom
+    private static long mixGamma(long z) {
+        z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+        z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        z = (z ^ (z >>> 33)) | 1L;
+        int transitions = Long.bitCount(z ^ (z >>> 1));
+        return transitions < 24 ? z ^ 0xaaaaaaaaaaaaaaaaL : z;
+    }
+}
@@ -1,12 +1,22 @@
 package utils;
 
 import ANN.NeuralNetwork;
+import Data.FeatureScaler;
 
 import java.io.Serial;
 import java.io.Serializable;
 
-public record TrainedModel(NeuralNetwork network, LabelEncoder encoder) implements Serializable {
+// scaler is the preprocessing fitted on the training data, or null if the inputs are used as they are
+public record TrainedModel(NeuralNetwork network, LabelEncoder encoder, FeatureScaler scaler) implements Serializable {
     @Serial
     private static final long serialVersionUID = 1L;
 
-}
\ No newline at end of file
+    public TrainedModel(NeuralNetwork network, LabelEncoder encoder) {
+        this(network, encoder, null);
+    }
+
+    // Applies the fitted preprocessing to one input row in place
+    public double[] preprocess(double[] inputs) {
+        return scaler == null ? inputs : scaler.transform(inputs);
+    }
+}
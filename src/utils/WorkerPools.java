@@ -0,0 +1,24 @@
+package utils;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * ForkJoin pools shared by the parallel inference and preprocessing passes,
+ * one per thread count, so a call doesn't start and stop its own threads.
+ * Workers are daemon threads and exit after idling for a while.
+ */
+public final class WorkerPools {
+    private static final ConcurrentHashMap<Integer, ForkJoinPool> POOLS = new ConcurrentHashMap<>();
+
+    private WorkerPools() {
+    }
+
+    // Pool with the given parallelism, shared by all callers; never shut it down
+    public static ForkJoinPool get(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Number of threads can't be less than 1");
+        }
+        return POOLS.computeIfAbsent(threads, ForkJoinPool::new);
+    }
+}